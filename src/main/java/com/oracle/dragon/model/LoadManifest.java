@@ -0,0 +1,43 @@
+package com.oracle.dragon.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LoadManifest {
+    private String dbName;
+    private Map<String, LoadManifestFile> files = new LinkedHashMap<>();
+    private Map<String, LoadManifestJob> jobs = new LinkedHashMap<>();
+
+    public LoadManifest() {
+    }
+
+    public String getDbName() {
+        return dbName;
+    }
+
+    public void setDbName(String dbName) {
+        this.dbName = dbName;
+    }
+
+    /**
+     * @return the data files by collection name and file name (<code>collection/file</code>)
+     */
+    public Map<String, LoadManifestFile> getFiles() {
+        return files;
+    }
+
+    public void setFiles(Map<String, LoadManifestFile> files) {
+        this.files = files;
+    }
+
+    /**
+     * @return the scheduler jobs loading collections, by collection name
+     */
+    public Map<String, LoadManifestJob> getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(Map<String, LoadManifestJob> jobs) {
+        this.jobs = jobs;
+    }
+}
@@ -0,0 +1,77 @@
+package com.oracle.dragon.model;
+
+public class LoadManifestFile {
+    private long size;
+    private long lastModified;
+    private String checksum;
+    private String[] objectNames;
+    private boolean uploaded;
+    private boolean loaded;
+    private String[] insertedLines;
+
+    public LoadManifestFile() {
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the CRC32C of the file content (hexadecimal)
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public String[] getObjectNames() {
+        return objectNames;
+    }
+
+    public void setObjectNames(String[] objectNames) {
+        this.objectNames = objectNames;
+    }
+
+    public boolean isUploaded() {
+        return uploaded;
+    }
+
+    public void setUploaded(boolean uploaded) {
+        this.uploaded = uploaded;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void setLoaded(boolean loaded) {
+        this.loaded = loaded;
+    }
+
+    /**
+     * @return the ranges of lines (<code>first-last</code>, sorted) already inserted by a REST load which didn't
+     * complete, null if none
+     */
+    public String[] getInsertedLines() {
+        return insertedLines;
+    }
+
+    public void setInsertedLines(String[] insertedLines) {
+        this.insertedLines = insertedLines;
+    }
+}
@@ -0,0 +1,33 @@
+package com.oracle.dragon.model;
+
+/**
+ * Scheduler job loading a collection: only the job runs and load operations following these ones belong to it.
+ */
+public class LoadManifestJob {
+    private long logId;
+    private long loadId;
+
+    public LoadManifestJob() {
+    }
+
+    public LoadManifestJob(long logId, long loadId) {
+        this.logId = logId;
+        this.loadId = loadId;
+    }
+
+    public long getLogId() {
+        return logId;
+    }
+
+    public void setLogId(long logId) {
+        this.logId = logId;
+    }
+
+    public long getLoadId() {
+        return loadId;
+    }
+
+    public void setLoadId(long loadId) {
+        this.loadId = loadId;
+    }
+}
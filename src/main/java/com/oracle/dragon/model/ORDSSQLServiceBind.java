@@ -0,0 +1,68 @@
+package com.oracle.dragon.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Bind variable of a REST Enabled SQL Service request, either by name or by (1-based) position.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ORDSSQLServiceBind {
+    public static final String VARCHAR2 = "VARCHAR2";
+    public static final String NUMBER = "NUMBER";
+    public static final String CLOB = "CLOB";
+
+    private String name;
+    private Integer index;
+    private String dataType;
+    private Object value;
+
+    public ORDSSQLServiceBind() {
+    }
+
+    public ORDSSQLServiceBind(String name, String dataType, Object value) {
+        this.name = name;
+        this.dataType = dataType;
+        this.value = value;
+    }
+
+    public ORDSSQLServiceBind(int index, String dataType, Object value) {
+        this.index = index;
+        this.dataType = dataType;
+        this.value = value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    @JsonProperty("data_type")
+    public String getDataType() {
+        return dataType;
+    }
+
+    @JsonProperty("data_type")
+    public void setDataType(String dataType) {
+        this.dataType = dataType;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+}
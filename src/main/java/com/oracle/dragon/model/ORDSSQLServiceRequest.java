@@ -0,0 +1,54 @@
+package com.oracle.dragon.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * JSON request of the REST Enabled SQL Service (statement text plus its bind variables).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ORDSSQLServiceRequest {
+    private String statementText;
+    private ORDSSQLServiceBind[] binds;
+    private Long offset;
+    private Integer limit;
+
+    public ORDSSQLServiceRequest() {
+    }
+
+    public ORDSSQLServiceRequest(String statementText, ORDSSQLServiceBind[] binds) {
+        this.statementText = statementText;
+        this.binds = binds;
+    }
+
+    public String getStatementText() {
+        return statementText;
+    }
+
+    public void setStatementText(String statementText) {
+        this.statementText = statementText;
+    }
+
+    public ORDSSQLServiceBind[] getBinds() {
+        return binds;
+    }
+
+    public void setBinds(ORDSSQLServiceBind[] binds) {
+        this.binds = binds;
+    }
+
+    public Long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(Long offset) {
+        this.offset = offset;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
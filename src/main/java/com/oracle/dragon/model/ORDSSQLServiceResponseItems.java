@@ -6,6 +6,7 @@ public class ORDSSQLServiceResponseItems {
     private int errorCode;
     private int errorLine;
     private String errorDetails;
+    private String[] response;
 
     public ORDSSQLServiceResponseItems() {
     }
@@ -49,4 +50,15 @@ public class ORDSSQLServiceResponseItems {
     public void setErrorDetails(String errorDetails) {
         this.errorDetails = errorDetails;
     }
+
+    /**
+     * @return the output of the statement (SQL*Plus messages and DBMS_OUTPUT lines when SERVEROUTPUT is on)
+     */
+    public String[] getResponse() {
+        return response;
+    }
+
+    public void setResponse(String[] response) {
+        this.response = response;
+    }
 }
@@ -1,27 +1,113 @@
 package com.oracle.dragon.util;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.oracle.dragon.model.LocalDragonConfiguration;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.oracle.dragon.model.ORDSSQLServiceBind;
+import com.oracle.dragon.model.ORDSSQLServiceRequest;
 import com.oracle.dragon.model.ORDSSQLServiceResponse;
 import com.oracle.dragon.model.ORDSSQLServiceResponseItems;
-import com.oracle.dragon.util.exception.LoadLocalConfigurationException;
 import com.oracle.dragon.util.exception.ORDSSQLServiceException;
-import com.oracle.dragon.util.exception.ORDSSQLServiceUnparsableResponseException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
 import java.net.ProxySelector;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Runs SQL queries using the REST service of Autonomous Databases (ADBs).
+ * <p>
+ * One instance owns one long-lived HTTP client (keep-alive, HTTP/2 when negotiated) so that all the calls made to the
+ * same ORDS endpoint reuse the same connections. Call {@link #close()} once done.
+ * <p>
+ * Throttled (HTTP 429/503) and transiently failing requests are retried according to a {@link RetryPolicy}.
  */
-public class ADBRESTService {
+public class ADBRESTService implements AutoCloseable {
+    /**
+     * JSON mapper shared by all the instances (thread-safe once configured).
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Maximum time to wait for a connection to be established.
+     */
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Default maximum number of requests sent concurrently by one instance.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 16;
+
+    /**
+     * Default number of rows fetched per call by {@link #query(String, ORDSSQLServiceBind...)}.
+     */
+    public static final int DEFAULT_QUERY_PAGE_SIZE = 1000;
+
+    /**
+     * Default maximum number of documents per bulk insert request.
+     */
+    public static final int DEFAULT_BULK_INSERT_DOCUMENTS = 1000;
+
+    /**
+     * Default maximum size in bytes of a bulk insert request.
+     */
+    public static final int DEFAULT_BULK_INSERT_BYTES = 2 * 1024 * 1024;
+
+    /**
+     * Maximum number of SODA GET responses kept for revalidation.
+     */
+    public static final int SODA_CACHE_MAX_ENTRIES = 256;
+
+    /**
+     * Status of a collection successfully created by {@link #createSODACollections(Map)}.
+     */
+    public static final String COLLECTION_CREATED = "created";
+
+    /**
+     * Status of a collection skipped by {@link #createSODACollections(Map)} because it already exists.
+     */
+    public static final String COLLECTION_EXISTS = "exists";
+
+    /**
+     * Prefix of the DBMS_OUTPUT lines reporting the status of each collection created in bulk.
+     */
+    private static final String COLLECTION_STATUS_PREFIX = "dragon:collection:";
+
     /**
      * URL of the service.
      */
@@ -34,24 +120,90 @@ public class ADBRESTService {
 
     private final String urlPrefix;
 
+    private final URI uriSQLService;
+
     /**
      * User for authentication.
      */
     private final String user;
 
     /**
-     * Password for authentication.
+     * Precomputed BASIC authentication header value.
+     */
+    private final String authorization;
+
+    /**
+     * Threads used by the HTTP client, released by {@link #close()}.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * HTTP client reused for all the requests.
+     */
+    private final HttpClient client;
+
+    /**
+     * Limits the number of requests sent concurrently to the endpoint, asynchronous requests waiting for a slot
+     * without blocking their caller.
+     */
+    private final AsyncPermits inFlightRequests;
+
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Recent latencies of idempotent reads, used to decide when to hedge them.
+     */
+    private final LatencyWindow readLatencies = new LatencyWindow();
+
+    /**
+     * Adapts the number of concurrent SODA writes to the database response (within the in-flight requests limit).
+     */
+    private final AdaptiveConcurrencyLimit writeLimit;
+
+    /**
+     * SODA GET responses (collection list, documents) revalidated using their ETag.
      */
-    private final String password;
+    private final ETagCache sodaCache = new ETagCache(SODA_CACHE_MAX_ENTRIES);
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder throttledResponses = new LongAdder();
+    private final LongAdder hedgedRequests = new LongAdder();
 
     public ADBRESTService(final String sqlDevWebUrl, final String user, final String password) {
+        this(sqlDevWebUrl, user, password, DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+    }
+
+    public ADBRESTService(final String sqlDevWebUrl, final String user, final String password, final int maxInFlightRequests) {
+        this(sqlDevWebUrl, user, password, maxInFlightRequests, new RetryPolicy());
+    }
+
+    public ADBRESTService(final String sqlDevWebUrl, final String user, final String password, final int maxInFlightRequests, final RetryPolicy retryPolicy) {
         final String url = sqlDevWebUrl;
         int ordsPos = url.indexOf("/ords/");
         this.urlPrefix = url.substring(0, ordsPos + 6) + user.toLowerCase() + "/";
         this.urlSQLService = this.urlPrefix + "_/sql";
         this.urlSODAService = this.urlPrefix + "soda/latest/";
+        this.uriSQLService = URI.create(urlSQLService);
         this.user = user;
-        this.password = password;
+        this.authorization = basicAuth(user, password);
+        this.retryPolicy = retryPolicy;
+
+        this.executor = Executors.newCachedThreadPool(r -> {
+            final Thread t = new Thread(r, "ords-" + this.user.toLowerCase());
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.inFlightRequests = new AsyncPermits(maxInFlightRequests, executor);
+        this.writeLimit = new AdaptiveConcurrencyLimit(1, Math.max(1, maxInFlightRequests / 4), Math.max(1, maxInFlightRequests), executor);
+
+        this.client = HttpClient
+                .newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .proxy(ProxySelector.getDefault())
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(executor)
+                .build();
     }
 
     public String getUrlPrefix() {
@@ -66,57 +218,254 @@ public class ADBRESTService {
         return urlSODAService;
     }
 
-    public String execute(final String command) {
+    /**
+     * @return the number of requests retried so far
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return the number of hedging requests sent so far
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests.sum();
+    }
+
+    /**
+     * @return the number of HTTP 429/503 responses received so far
+     */
+    public long getThrottledResponses() {
+        return throttledResponses.sum();
+    }
+
+    /**
+     * @return the number of SODA GET responses served from the cache (not modified)
+     */
+    public long getCacheHits() {
+        return sodaCache.getHits();
+    }
+
+    /**
+     * @return the number of SODA GET responses which payload was transferred
+     */
+    public long getCacheMisses() {
+        return sodaCache.getMisses();
+    }
+
+    /**
+     * @return the current maximum number of concurrent SODA write requests
+     */
+    public int getWriteConcurrencyLimit() {
+        return writeLimit.getLimit();
+    }
+
+    /**
+     * @return the number of documents inserted per second since the first SODA write request
+     */
+    public double getInsertedDocumentsPerSecond() {
+        return writeLimit.getDocumentsPerSecond();
+    }
+
+    /**
+     * Runs SQL statements, failing if any of them failed.
+     *
+     * @param command the SQL statement(s) to run
+     * @return the outcome of each statement (result sets are not retained, see {@link #query(String, ORDSSQLServiceBind...)})
+     */
+    public ORDSSQLServiceResponse execute(final String command) {
+        try {
+            return send(sqlRequest(command), HttpResponse.BodyHandlers.ofInputStream(), this::checkSQLServiceResponse);
+        } catch (Exception e) {
+            throw new RuntimeException("REST SQL Service could not run " + command, e);
+        }
+    }
+
+    /**
+     * Runs SQL statements without blocking the caller.
+     *
+     * @param command the SQL statement(s) to run
+     * @return the future outcome of each statement
+     * @see #execute(String)
+     */
+    public CompletableFuture<ORDSSQLServiceResponse> executeAsync(final String command) {
+        return sendAsync(sqlRequest(command), HttpResponse.BodyHandlers.ofInputStream(), this::checkSQLServiceResponse, "REST SQL Service could not run " + command);
+    }
+
+    /**
+     * Runs a SQL statement (or PL/SQL block) with bind variables using the JSON format of the REST Enabled SQL
+     * Service so that the statement text remains the same from one execution to another (and can be shared).
+     *
+     * @param statementText the SQL statement referencing bind variables
+     * @param binds         the values of the bind variables
+     * @return the outcome of the statement
+     */
+    public ORDSSQLServiceResponse execute(final String statementText, final ORDSSQLServiceBind... binds) {
+        try {
+            return send(sqlRequest(new ORDSSQLServiceRequest(statementText, binds)), HttpResponse.BodyHandlers.ofInputStream(), this::checkSQLServiceResponse);
+        } catch (Exception e) {
+            throw new RuntimeException("REST SQL Service could not run " + statementText, e);
+        }
+    }
+
+    /**
+     * Runs a SQL statement with bind variables without blocking the caller.
+     *
+     * @param statementText the SQL statement referencing bind variables
+     * @param binds         the values of the bind variables
+     * @return the future outcome of the statement
+     * @see #execute(String, ORDSSQLServiceBind...)
+     */
+    public CompletableFuture<ORDSSQLServiceResponse> executeAsync(final String statementText, final ORDSSQLServiceBind... binds) {
+        final String errorMessage = "REST SQL Service could not run " + statementText;
+        try {
+            return sendAsync(sqlRequest(new ORDSSQLServiceRequest(statementText, binds)), HttpResponse.BodyHandlers.ofInputStream(), this::checkSQLServiceResponse, errorMessage);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException(errorMessage, e));
+        }
+    }
+
+    private HttpRequest sqlRequest(final ORDSSQLServiceRequest sqlRequest) throws JsonProcessingException {
+        return HttpRequest.newBuilder()
+                .uri(uriSQLService)
+                .headers("Content-Type", "application/json",
+                        "Accept-Encoding", "gzip",
+                        "Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(sqlRequest), StandardCharsets.UTF_8))
+                .build();
+    }
+
+    /**
+     * Runs a SQL query and iterates over its rows, fetching them page by page.
+     *
+     * @param statementText the SQL query
+     * @param binds         the values of the bind variables
+     * @return the rows as JSON objects (column names as keys); close it if not iterated until the end
+     * @see #query(String, int, ORDSSQLServiceBind...)
+     */
+    public JSONPageIterator query(final String statementText, final ORDSSQLServiceBind... binds) {
+        return query(statementText, DEFAULT_QUERY_PAGE_SIZE, binds);
+    }
+
+    /**
+     * Runs a SQL query without side effects and iterates over its rows, fetching them page by page. Unlike
+     * {@link #query(String, ORDSSQLServiceBind...)}, a page may be requested again after an I/O failure or hedged
+     * when slow, the statement running then more than once.
+     *
+     * @param statementText the SQL query, only reading data
+     * @param binds         the values of the bind variables
+     * @return the rows as JSON objects (column names as keys); close it if not iterated until the end
+     */
+    public JSONPageIterator queryReadOnly(final String statementText, final ORDSSQLServiceBind... binds) {
+        return new SQLResultSetIterator(this, statementText, binds, DEFAULT_QUERY_PAGE_SIZE, true);
+    }
+
+    /**
+     * Runs a SQL query and iterates over its rows. Pages of rows are requested using the offset/limit pagination of the
+     * REST Enabled SQL Service, asking for compressed responses, and each page is parsed as it is received: memory
+     * usage remains the same whatever the number of rows.
+     * <p>
+     * The statement may be anything (a PL/SQL function call, a DML statement returning rows...): a page request is
+     * therefore never sent again once it may have reached the database, see {@link #queryReadOnly(String, ORDSSQLServiceBind...)}
+     * otherwise.
+     *
+     * @param statementText the SQL query
+     * @param pageSize      the number of rows to fetch per call
+     * @param binds         the values of the bind variables
+     * @return the rows as JSON objects (column names as keys); close it if not iterated until the end
+     */
+    public JSONPageIterator query(final String statementText, final int pageSize, final ORDSSQLServiceBind... binds) {
+        return new SQLResultSetIterator(this, statementText, binds, pageSize, false);
+    }
+
+    /**
+     * @param readOnly whether the statement is known to only read data, the page request being retried and hedged then
+     */
+    InputStream openSQLQueryPage(final String statementText, final ORDSSQLServiceBind[] binds, final long offset, final int limit, final boolean readOnly) throws Exception {
+        final ORDSSQLServiceRequest sqlRequest = new ORDSSQLServiceRequest(statementText, binds);
+        sqlRequest.setOffset(offset);
+        sqlRequest.setLimit(limit);
+
+        return sendForStream(HttpRequest.newBuilder()
+                .uri(uriSQLService)
+                .headers("Content-Type", "application/json",
+                        "Accept-Encoding", "gzip",
+                        "Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(sqlRequest), StandardCharsets.UTF_8))
+                .build(), 200, readOnly);
+    }
+
+    private HttpRequest sqlRequest(final String command) {
         // https://docs.oracle.com/en/database/oracle/oracle-rest-data-services/20.2/aelig/rest-enabled-sql-service.html
+        return HttpRequest.newBuilder()
+                .uri(uriSQLService)
+                .headers("Content-Type", "application/sql",
+                        "Accept-Encoding", "gzip",
+                        "Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofString(command))
+                .build();
+    }
+
+    /**
+     * Runs a SQL script made of several statements, reporting the outcome of each of them instead of failing on the
+     * first error.
+     *
+     * @param script the SQL script to run
+     * @return the response describing each statement (including its error code if any)
+     */
+    public ORDSSQLServiceResponse executeScript(final String script) {
         try {
-            final HttpRequest request = HttpRequest.newBuilder()
-                    .uri(new URI(urlSQLService))
-                    .headers("Content-Type", "application/sql",
-                            "Authorization", basicAuth(user, password))
-                    .POST(HttpRequest.BodyPublishers.ofString(command))
-                    .build();
-
-            final HttpResponse<String> response = HttpClient
-                    .newBuilder()
-                    .version(HttpClient.Version.HTTP_1_1)
-                    .proxy(ProxySelector.getDefault())
-                    .build()
-                    .send(request, HttpResponse.BodyHandlers.ofString());
+            return send(sqlRequest(script), HttpResponse.BodyHandlers.ofInputStream(), this::parseSQLServiceResponse);
+        } catch (Exception e) {
+            throw new RuntimeException("REST SQL Service could not run script", e);
+        }
+    }
+
+    /**
+     * Runs a SQL script without blocking the caller.
+     *
+     * @param script the SQL script to run
+     * @return the future response describing each statement (including its error code if any)
+     * @see #executeScript(String)
+     */
+    public CompletableFuture<ORDSSQLServiceResponse> executeScriptAsync(final String script) {
+        return sendAsync(sqlRequest(script), HttpResponse.BodyHandlers.ofInputStream(), this::parseSQLServiceResponse, "REST SQL Service could not run script");
+    }
 
+    /**
+     * Parses the response as it is received, keeping only the outcome of each statement.
+     */
+    private ORDSSQLServiceResponse parseSQLServiceResponse(final HttpResponse<InputStream> response) throws Exception {
+        try (InputStream body = decode(response)) {
             if (response.statusCode() != 200) {
                 throw new RuntimeException("Request was not successful (" + response.statusCode() + ")");
             }
 
-            // parsing body response to check for any error!
-            final String responseAsText = response.body();
+            return ORDSSQLServiceResponseParser.parse(body);
+        }
+    }
 
-            final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            try {
-                final ORDSSQLServiceResponse ORDSResponse = mapper.readValue(responseAsText, ORDSSQLServiceResponse.class);
-
-                boolean atLeastOneError = false;
-                final StringBuilder errors = new StringBuilder();
-                for(ORDSSQLServiceResponseItems item:ORDSResponse.getItems()) {
-                    if(item.getErrorCode() != 0) {
-                        atLeastOneError = true;
-                        if(errors.length() > 0) {
-                            errors.append('\n');
-                        }
-                        errors.append("Error (Line ").append(item.getErrorLine()).append("): ").append(item.getErrorDetails());
-                    }
-                }
+    private ORDSSQLServiceResponse checkSQLServiceResponse(final HttpResponse<InputStream> response) throws Exception {
+        // parsing body response to check for any error!
+        final ORDSSQLServiceResponse ORDSResponse = parseSQLServiceResponse(response);
 
-                if(atLeastOneError) {
-                    throw new ORDSSQLServiceException(errors.toString());
+        boolean atLeastOneError = false;
+        final StringBuilder errors = new StringBuilder();
+        for(ORDSSQLServiceResponseItems item:ORDSResponse.getItems()) {
+            if(item.getErrorCode() != 0) {
+                atLeastOneError = true;
+                if(errors.length() > 0) {
+                    errors.append('\n');
                 }
-
-                return responseAsText;
-            } catch (IOException e) {
-                throw new ORDSSQLServiceUnparsableResponseException(responseAsText,e);
+                errors.append("Error (Line ").append(item.getErrorLine()).append("): ").append(item.getErrorDetails());
             }
-        } catch (Exception e) {
-            throw new RuntimeException("REST SQL Service could not run " + command, e);
         }
+
+        if(atLeastOneError) {
+            throw new ORDSSQLServiceException(errors.toString());
+        }
+
+        return ORDSResponse;
     }
 
     /**
@@ -126,8 +475,8 @@ public class ADBRESTService {
      * @param password  password to use for authentication
      * @return the base 64 encoded authentication signature
      */
-    private String basicAuth(final String user, final String password) {
-        return String.format("Basic %s", Base64.getEncoder().encodeToString((String.format("%s:%s",user,  password)).getBytes()));
+    private static String basicAuth(final String user, final String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -137,52 +486,789 @@ public class ADBRESTService {
      * @return the HTTPS response body
      */
     public String createSODACollection(final String collectionName) {
+        return createSODACollection(collectionName, null);
+    }
+
+    /**
+     * Creates a SODA collection with the given storage options.
+     *
+     * @param collectionName    the name of the SODA collection
+     * @param metadata          the storage options of the collection (null for the default ones)
+     * @return the HTTPS response body
+     */
+    public String createSODACollection(final String collectionName, final SODACollectionMetadata metadata) {
         try {
-            final HttpRequest request = HttpRequest.newBuilder()
-                    .uri(new URI(urlSODAService + collectionName))
-                    .headers("Authorization", basicAuth(user, password))
-                    .PUT(HttpRequest.BodyPublishers.ofString("{}"))
-                    .build();
+            return send(createSODACollectionRequest(collectionName, metadata), r -> checkStatus(r, 201));
+        } catch (Exception e) {
+            throw new RuntimeException("REST SODA Service could not create collection " + collectionName, e);
+        }
+    }
+
+    /**
+     * Creates a SODA collection without blocking the caller.
+     *
+     * @param collectionName    the name of the SODA collection
+     * @return the future HTTPS response body
+     */
+    public CompletableFuture<String> createSODACollectionAsync(final String collectionName) {
+        return createSODACollectionAsync(collectionName, null);
+    }
+
+    /**
+     * Creates a SODA collection with the given storage options without blocking the caller.
+     *
+     * @param collectionName    the name of the SODA collection
+     * @param metadata          the storage options of the collection (null for the default ones)
+     * @return the future HTTPS response body
+     */
+    public CompletableFuture<String> createSODACollectionAsync(final String collectionName, final SODACollectionMetadata metadata) {
+        return sendAsync(createSODACollectionRequest(collectionName, metadata), r -> checkStatus(r, 201), "REST SODA Service could not create collection " + collectionName);
+    }
+
+    private HttpRequest createSODACollectionRequest(final String collectionName, final SODACollectionMetadata metadata) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(urlSODAService + collectionName))
+                .headers("Content-Type", "application/json", "Authorization", authorization)
+                .PUT(HttpRequest.BodyPublishers.ofString(metadata == null ? "{}" : metadata.toJSON(), StandardCharsets.UTF_8))
+                .build();
+    }
 
-            final HttpResponse<String> response = HttpClient
-                    .newBuilder()
-                    .version(HttpClient.Version.HTTP_1_1)
-                    .proxy(ProxySelector.getDefault())
-                    .build()
-                    .send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Creates several SODA collections in one call, using one PL/SQL block (DBMS_SODA). Existing collections are
+     * skipped and a collection that fails to be created doesn't prevent the next ones from being created.
+     *
+     * @param collections the names of the collections and their storage options (null for the default ones)
+     * @return the status of each collection: {@link #COLLECTION_CREATED}, {@link #COLLECTION_EXISTS} or the error message
+     */
+    public Map<String, String> createSODACollections(final Map<String, SODACollectionMetadata> collections) {
+        if (collections.isEmpty()) return new LinkedHashMap<>();
 
-            if (response.statusCode() != 201) {
-                throw new RuntimeException("Request was not successful (" + response.statusCode() + "):\n" + response.body());
+        final List<String> names = new ArrayList<>(collections.keySet());
+        final StringBuilder nameList = new StringBuilder();
+        final StringBuilder metadataList = new StringBuilder();
+        for (String name : names) {
+            final SODACollectionMetadata metadata = collections.get(name);
+            if (nameList.length() > 0) {
+                nameList.append(", ");
+                metadataList.append(", ");
             }
+            nameList.append(sqlLiteral(name));
+            metadataList.append(metadata == null ? "NULL" : sqlLiteral(metadata.toJSON()));
+        }
 
-            return response.body();
-        } catch (Exception e) {
-            throw new RuntimeException("REST SODA Service could not create collection " + collectionName, e);
+        final ORDSSQLServiceResponse response = execute("SET SERVEROUTPUT ON\n" +
+                "DECLARE\n" +
+                "    names SYS.ODCIVARCHAR2LIST := SYS.ODCIVARCHAR2LIST(" + nameList + ");\n" +
+                "    metadata SYS.ODCIVARCHAR2LIST := SYS.ODCIVARCHAR2LIST(" + metadataList + ");\n" +
+                "    collection SODA_COLLECTION_T;\n" +
+                "BEGIN\n" +
+                "    DBMS_OUTPUT.ENABLE(NULL);\n" +
+                "    FOR i IN 1 .. names.COUNT LOOP\n" +
+                "        BEGIN\n" +
+                "            IF DBMS_SODA.OPEN_COLLECTION(names(i)) IS NOT NULL THEN\n" +
+                "                DBMS_OUTPUT.PUT_LINE('" + COLLECTION_STATUS_PREFIX + "' || i || ':" + COLLECTION_EXISTS + "');\n" +
+                "            ELSE\n" +
+                "                collection := DBMS_SODA.CREATE_COLLECTION(names(i), metadata(i));\n" +
+                "                DBMS_OUTPUT.PUT_LINE('" + COLLECTION_STATUS_PREFIX + "' || i || ':" + COLLECTION_CREATED + "');\n" +
+                "            END IF;\n" +
+                "        EXCEPTION\n" +
+                "            WHEN OTHERS THEN\n" +
+                "                DBMS_OUTPUT.PUT_LINE('" + COLLECTION_STATUS_PREFIX + "' || i || ':' || SQLERRM);\n" +
+                "        END;\n" +
+                "    END LOOP;\n" +
+                "    COMMIT;\n" +
+                "END;\n" +
+                "/");
+
+        final String[] reported = new String[names.size()];
+        for (ORDSSQLServiceResponseItems item : response.getItems()) {
+            if (item.getResponse() == null) continue;
+
+            for (String output : item.getResponse()) {
+                for (String line : output.split("\n")) {
+                    if (!line.startsWith(COLLECTION_STATUS_PREFIX)) continue;
+
+                    final int separator = line.indexOf(':', COLLECTION_STATUS_PREFIX.length());
+                    final int index = Integer.parseInt(line.substring(COLLECTION_STATUS_PREFIX.length(), separator)) - 1;
+                    reported[index] = line.substring(separator + 1).trim();
+                }
+            }
+        }
+
+        final Map<String, String> statuses = new LinkedHashMap<>();
+        for (int i = 0; i < reported.length; i++) {
+            statuses.put(names.get(i), reported[i] == null ? "no status reported" : reported[i]);
         }
+
+        return statuses;
+    }
+
+    private static String sqlLiteral(final String value) {
+        return "'" + value.replace("'", "''") + "'";
     }
 
     public String insertDocument(final String collectionName, final String document) {
         try {
-            final HttpRequest request = HttpRequest.newBuilder()
-                    .uri(new URI(urlSODAService + collectionName))
-                    .headers("Content-Type", "application/json", "Authorization", basicAuth(user, password))
-                    .POST(HttpRequest.BodyPublishers.ofString(document, StandardCharsets.UTF_8))
-                    .build();
+            return await(insertDocumentAsync(collectionName, document));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("REST SODA Service could not insert document " + document + " into collection " + collectionName, e);
+        }
+    }
+
+    /**
+     * Inserts a document into a SODA collection without blocking the caller.
+     *
+     * @param collectionName    the name of the SODA collection
+     * @param document          the JSON document to insert
+     * @return the future HTTPS response body
+     */
+    public CompletableFuture<String> insertDocumentAsync(final String collectionName, final String document) {
+        return sendWrite(insertDocumentRequest(collectionName, document), r -> checkStatus(r, 201), "REST SODA Service could not insert document " + document + " into collection " + collectionName, 1);
+    }
+
+    /**
+     * Inserts documents into a SODA collection using bulk inserts with the default batch limits.
+     *
+     * @param collectionName the name of the SODA collection
+     * @param documents      the JSON documents to insert
+     * @return the keys assigned to the documents of each batch and the failed batches
+     * @see #insertDocuments(String, Iterator, int, int)
+     */
+    public SODABulkInsertResult insertDocuments(final String collectionName, final Iterator<String> documents) {
+        return insertDocuments(collectionName, documents, DEFAULT_BULK_INSERT_DOCUMENTS, DEFAULT_BULK_INSERT_BYTES);
+    }
 
-            final HttpResponse<String> response = HttpClient
-                    .newBuilder()
-                    .version(HttpClient.Version.HTTP_1_1)
-                    .proxy(ProxySelector.getDefault())
-                    .build()
-                    .send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Inserts documents into a SODA collection using bulk inserts (<code>action=insert</code>), each batch holding at
+     * most the given number of documents and bytes. Batches are built one at a time and sent concurrently: once as
+     * many batches are in flight as the adaptive write concurrency limit allows, the next one is built only when one
+     * of them completes, so that the documents are neither read ahead nor held in memory beyond these batches. A
+     * failed batch doesn't prevent the next ones from being sent.
+     *
+     * @param collectionName     the name of the SODA collection
+     * @param documents          the JSON documents to insert
+     * @param maxBatchDocuments  the maximum number of documents per batch
+     * @param maxBatchBytes      the maximum size of a batch in bytes (a larger document is sent alone)
+     * @return the keys assigned to the documents of each batch and the failed batches
+     * @throws RuntimeException if interrupted, once the batches in flight are completed
+     */
+    public SODABulkInsertResult insertDocuments(final String collectionName, final Iterator<String> documents, final int maxBatchDocuments, final int maxBatchBytes) {
+        final SODABulkInsertResult result = new SODABulkInsertResult();
+
+        // one party for this thread, one more per batch in flight
+        final Phaser inFlight = new Phaser(1);
+        final AtomicInteger batchesInFlight = new AtomicInteger();
+        int batches = 0;
 
-            if (response.statusCode() != 201) {
-                throw new RuntimeException("Request was not successful (" + response.statusCode() + "):\n" + response.body());
+        try {
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            int count = 0;
+            while (documents.hasNext()) {
+                final byte[] document = documents.next().getBytes(StandardCharsets.UTF_8);
+
+                if (count > 0 && (count >= maxBatchDocuments || batch.size() + document.length + 2 > maxBatchBytes)) {
+                    insertBatch(collectionName, batch, count, batches++, result, inFlight, batchesInFlight);
+                    batch = new ByteArrayOutputStream();
+                    count = 0;
+                }
+
+                batch.write(count == 0 ? '[' : ',');
+                batch.writeBytes(document);
+                count++;
+            }
+
+            if (count > 0) {
+                insertBatch(collectionName, batch, count, batches, result, inFlight, batchesInFlight);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("REST SODA Service insertion of documents into collection " + collectionName + " interrupted", e);
+        } finally {
+            inFlight.arriveAndAwaitAdvance();
+        }
+
+        return result;
+    }
+
+    /**
+     * Sends a batch once the number of batches in flight is below the write concurrency limit.
+     */
+    private void insertBatch(final String collectionName, final ByteArrayOutputStream batch, final int count, final int index, final SODABulkInsertResult result,
+                             final Phaser inFlight, final AtomicInteger batchesInFlight) throws InterruptedException {
+        synchronized (batchesInFlight) {
+            while (batchesInFlight.get() >= writeLimit.getLimit()) {
+                batchesInFlight.wait();
+            }
+            batchesInFlight.incrementAndGet();
+        }
+        inFlight.register();
+
+        batch.write(']');
+        insertDocumentsAsync(collectionName, batch.toByteArray(), count).whenComplete((keys, throwable) -> {
+            result.add(new SODABulkInsertResult.BatchResult(index, count, keys == null ? Collections.emptyList() : keys,
+                    throwable instanceof CompletionException ? throwable.getCause() : throwable));
+            synchronized (batchesInFlight) {
+                batchesInFlight.decrementAndGet();
+                batchesInFlight.notifyAll();
+            }
+            inFlight.arriveAndDeregister();
+        });
+    }
+
+    /**
+     * Inserts a batch of documents into a SODA collection in one request, without blocking the caller.
+     *
+     * @param collectionName the name of the SODA collection
+     * @param documents      the JSON documents to insert
+     * @return the future keys assigned to the documents, in the same order
+     */
+    public CompletableFuture<List<String>> insertDocumentsAsync(final String collectionName, final List<String> documents) {
+        final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        for (String document : documents) {
+            batch.write(batch.size() == 0 ? '[' : ',');
+            batch.writeBytes(document.getBytes(StandardCharsets.UTF_8));
+        }
+        if (batch.size() == 0) batch.write('[');
+        batch.write(']');
+
+        return insertDocumentsAsync(collectionName, batch.toByteArray(), documents.size());
+    }
+
+    private CompletableFuture<List<String>> insertDocumentsAsync(final String collectionName, final byte[] jsonArray, final int count) {
+        final HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(urlSODAService + collectionName + "?action=insert"))
+                .headers("Content-Type", "application/json", "Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(jsonArray))
+                .build();
+
+        return sendWrite(request, this::parseInsertedKeys, "REST SODA Service could not insert " + count + " documents into collection " + collectionName, count);
+    }
+
+    /**
+     * Inserts a batch of documents without retrieving their keys.
+     *
+     * @param collectionName the name of the SODA collection
+     * @param jsonArray      the JSON array of the documents encoded in UTF-8
+     * @param count          the number of documents of the array
+     * @return the future completed once the documents are inserted
+     */
+    CompletableFuture<Void> insertJSONArrayAsync(final String collectionName, final byte[] jsonArray, final int count) {
+        final HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(urlSODAService + collectionName + "?action=insert"))
+                .headers("Content-Type", "application/json", "Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(jsonArray))
+                .build();
+
+        return sendWrite(request, r -> {
+            checkStatus(r, 200);
+            return null;
+        }, "REST SODA Service could not insert " + count + " documents into collection " + collectionName, count);
+    }
+
+    /**
+     * Sends a SODA write request once the adaptive write concurrency limit allows it, without blocking the caller nor
+     * any thread while waiting for it.
+     *
+     * @param documents the number of documents written by the request
+     * @see #sendAsync(HttpRequest, ResponseHandler, String)
+     */
+    private <T> CompletableFuture<T> sendWrite(final HttpRequest request, final ResponseHandler<String, T> handler, final String errorMessage, final int documents) {
+        return writeLimit.acquire().thenCompose(start -> {
+            final long throttledBefore = throttledResponses.sum();
+            return sendAsync(request, handler, errorMessage)
+                    .whenComplete((r, t) -> writeLimit.release(start, documents, t == null, throttledResponses.sum() > throttledBefore));
+        });
+    }
+
+    private List<String> parseInsertedKeys(final HttpResponse<String> response) throws Exception {
+        final JsonNode items = MAPPER.readTree(checkStatus(response, 200)).get("items");
+        final List<String> keys = new ArrayList<>(items == null ? 0 : items.size());
+        if (items != null) {
+            for (JsonNode item : items) {
+                keys.add(item.path("id").asText());
+            }
+        }
+        return keys;
+    }
+
+    private HttpRequest insertDocumentRequest(final String collectionName, final String document) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(urlSODAService + collectionName))
+                .headers("Content-Type", "application/json", "Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofString(document, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    /**
+     * Lists the SODA collections.
+     *
+     * @return the HTTPS response body (<code>items</code> describing each collection)
+     */
+    public String getSODACollections() {
+        return getCached(urlSODAService, "REST SODA Service could not list collections");
+    }
+
+    /**
+     * Gets a document of a SODA collection by key.
+     *
+     * @param collectionName the name of the SODA collection
+     * @param key            the key of the document
+     * @return the JSON document
+     */
+    public String getDocument(final String collectionName, final String key) {
+        return getCached(urlSODAService + collectionName + "/" + key, "REST SODA Service could not get document " + key + " from collection " + collectionName);
+    }
+
+    /**
+     * Sends a GET request, asking the server to answer 304 Not Modified if the cached response is still current.
+     *
+     * @param url          the SODA resource
+     * @param errorMessage the message of the exception thrown in case of failure
+     * @return the response body, possibly from the cache
+     */
+    private String getCached(final String url, final String errorMessage) {
+        final ETagCache.CachedResponse cached = sodaCache.get(url);
+
+        final HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Authorization", authorization)
+                .GET();
+        if (cached != null) {
+            request.header("If-None-Match", cached.etag);
+        }
 
-            return response.body();
+        try {
+            return send(request.build(), r -> {
+                if (cached != null && r.statusCode() == 304) {
+                    sodaCache.hit();
+                    return cached.body;
+                }
+
+                sodaCache.miss();
+                final String body = checkStatus(r, 200);
+                final String etag = r.headers().firstValue("ETag").orElse(null);
+                if (etag != null) {
+                    sodaCache.put(url, new ETagCache.CachedResponse(etag, body));
+                } else {
+                    sodaCache.remove(url);
+                }
+                return body;
+            });
         } catch (Exception e) {
-            throw new RuntimeException("REST SODA Service could not insert document " + document + " into collection " + collectionName, e);
+            throw new RuntimeException(errorMessage, e);
+        }
+    }
+
+    /**
+     * Applies a JSON Patch to all the documents matching a QBE, inside the database (<code>action=update</code>).
+     *
+     * @param collectionName the name of the SODA collection
+     * @param qbe            the QBE selecting the documents to update
+     * @param patch          the JSON Patch (RFC 6902) operations array to apply to each document
+     * @return the numbers of matched and updated documents
+     */
+    public SODABulkOperationResult updateDocuments(final String collectionName, final String qbe, final String patch) {
+        final String errorMessage = "REST SODA Service could not update documents of collection " + collectionName;
+        try {
+            final ObjectNode body = MAPPER.createObjectNode();
+            body.set("$query", MAPPER.readTree(qbe));
+            body.set("$patch", MAPPER.readTree(patch));
+
+            return send(bulkOperationRequest(collectionName, "update", body.toString()), r -> parseBulkOperationResult(r, "itemsUpdated"));
+        } catch (Exception e) {
+            throw new RuntimeException(errorMessage, e);
+        }
+    }
+
+    /**
+     * Deletes all the documents matching a QBE, inside the database (<code>action=delete</code>).
+     *
+     * @param collectionName the name of the SODA collection
+     * @param qbe            the QBE selecting the documents to delete
+     * @return the numbers of matched and deleted documents
+     */
+    public SODABulkOperationResult deleteDocuments(final String collectionName, final String qbe) {
+        final String errorMessage = "REST SODA Service could not delete documents of collection " + collectionName;
+        try {
+            return send(bulkOperationRequest(collectionName, "delete", MAPPER.readTree(qbe).toString()), r -> parseBulkOperationResult(r, "itemsDeleted"));
+        } catch (Exception e) {
+            throw new RuntimeException(errorMessage, e);
+        }
+    }
+
+    private HttpRequest bulkOperationRequest(final String collectionName, final String action, final String body) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(urlSODAService + collectionName + "?action=" + action))
+                .headers("Content-Type", "application/json", "Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static SODABulkOperationResult parseBulkOperationResult(final HttpResponse<String> response, final String affectedField) throws Exception {
+        final JsonNode result = MAPPER.readTree(checkStatus(response, 200));
+        final long matched = result.path("count").asLong();
+        return new SODABulkOperationResult(matched, result.has(affectedField) ? result.get(affectedField).asLong() : matched);
+    }
+
+    /**
+     * Queries a SODA collection using a QBE, the database filtering and sorting the documents.
+     *
+     * @param collectionName the name of the SODA collection
+     * @param query          the QBE and its options
+     * @return the matching documents (each one with its <code>id</code>, <code>etag</code>... and <code>value</code>
+     * holding the content); close it if not iterated until the end
+     */
+    public JSONPageIterator querySODA(final String collectionName, final SODAQuery query) {
+        return new SODADocumentIterator(this, collectionName, query);
+    }
+
+    InputStream openSODAQueryPage(final String collectionName, final String filterSpec, final long offset, final int limit, final String fields) throws Exception {
+        final StringBuilder uri = new StringBuilder(urlSODAService).append(collectionName)
+                .append("?action=query&fields=").append(fields)
+                .append("&limit=").append(limit);
+        if (offset > 0) {
+            uri.append("&offset=").append(offset);
+        }
+
+        return sendForStream(HttpRequest.newBuilder()
+                .uri(URI.create(uri.toString()))
+                .headers("Content-Type", "application/json",
+                        "Accept-Encoding", "gzip",
+                        "Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofString(filterSpec, StandardCharsets.UTF_8))
+                .build(), 200, true);
+    }
+
+    private static String checkStatus(final HttpResponse<String> response, final int expectedStatusCode) {
+        if (response.statusCode() != expectedStatusCode) {
+            throw new RuntimeException("Request was not successful (" + response.statusCode() + "):\n" + response.body());
+        }
+
+        return response.body();
+    }
+
+    /**
+     * Processes a HTTPS response, throwing an exception if the request didn't succeed.
+     */
+    @FunctionalInterface
+    private interface ResponseHandler<B, T> {
+        T handle(HttpResponse<B> response) throws Exception;
+    }
+
+    private <T> T send(final HttpRequest request, final ResponseHandler<String, T> handler) throws Exception {
+        return send(request, HttpResponse.BodyHandlers.ofString(), handler);
+    }
+
+    private <B, T> T send(final HttpRequest request, final HttpResponse.BodyHandler<B> bodyHandler, final ResponseHandler<B, T> handler) throws Exception {
+        inFlightRequests.acquireBlocking();
+        try {
+            return handler.handle(await(exchange(request, bodyHandler, isIdempotent(request), 0)));
+        } finally {
+            inFlightRequests.release();
         }
     }
+
+    /**
+     * POST requests run SQL statements or insert documents: they are not idempotent unless stated otherwise.
+     */
+    private static boolean isIdempotent(final HttpRequest request) {
+        return !"POST".equals(request.method());
+    }
+
+    private static <T> T await(final CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a request, retrying it according to the retry policy, without blocking the caller.
+     *
+     * @param request     the request to send
+     * @param bodyHandler how to receive the response body
+     * @param idempotent  whether the request can be sent again after it may have been processed
+     * @param attempt     the number of attempts already made
+     * @return the future response, either successful or not retryable anymore
+     */
+    private <B> CompletableFuture<HttpResponse<B>> exchange(final HttpRequest request, final HttpResponse.BodyHandler<B> bodyHandler, final boolean idempotent, final int attempt) {
+        return client.sendAsync(request, bodyHandler).handle((response, throwable) -> {
+            if (throwable != null) {
+                final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                if (attempt < retryPolicy.getMaxRetries() && isRetryable(cause, idempotent)) {
+                    return retryLater(retryPolicy.backoff(attempt), () -> exchange(request, bodyHandler, idempotent, attempt + 1));
+                }
+                return CompletableFuture.<HttpResponse<B>>failedFuture(cause);
+            }
+
+            if (response.statusCode() == 429 || response.statusCode() == 503) {
+                throttledResponses.increment();
+            }
+
+            final long delay = retryDelay(response, idempotent, attempt);
+            if (delay < 0) {
+                return CompletableFuture.completedFuture(response);
+            }
+
+            discard(response);
+            return retryLater(delay, () -> exchange(request, bodyHandler, idempotent, attempt + 1));
+        }).thenCompose(f -> f);
+    }
+
+    private <T> CompletableFuture<T> retryLater(final long delayMillis, final Supplier<CompletableFuture<T>> retry) {
+        retries.increment();
+        return CompletableFuture.supplyAsync(retry, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor)).thenCompose(f -> f);
+    }
+
+    /**
+     * A request which couldn't reach the server can always be sent again, other I/O failures (timeouts, reset
+     * streams...) only if the request is idempotent.
+     */
+    private static boolean isRetryable(final Throwable cause, final boolean idempotent) {
+        return cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException || (idempotent && cause instanceof IOException);
+    }
+
+    /**
+     * @return the wait in milliseconds before retrying the request, or -1 if the response must be kept
+     */
+    private long retryDelay(final HttpResponse<?> response, final boolean idempotent, final int attempt) {
+        if (attempt >= retryPolicy.getMaxRetries()) return -1;
+
+        switch (response.statusCode()) {
+            case 429: // Too Many Requests
+            case 503: // Service Unavailable: rejected before being processed
+                break;
+
+            case 502: // Bad Gateway
+            case 504: // Gateway Timeout
+                if (idempotent) break;
+                return -1;
+
+            default:
+                return -1;
+        }
+
+        final long backoff = retryPolicy.backoff(attempt);
+        final long retryAfter = retryAfterMillis(response);
+
+        // a longer wait than allowed by the policy would make the tail latency unbounded
+        if (retryAfter > retryPolicy.getMaxBackoffMillis()) return -1;
+
+        return Math.max(backoff, retryAfter);
+    }
+
+    /**
+     * @return the wait asked by the <code>Retry-After</code> header (delay in seconds or HTTP date), 0 if absent or invalid
+     */
+    private static long retryAfterMillis(final HttpResponse<?> response) {
+        final String retryAfter = response.headers().firstValue("Retry-After").orElse("").trim();
+        if (retryAfter.isEmpty()) return 0;
+
+        try {
+            return Math.max(0, Long.parseLong(retryAfter) * 1000);
+        } catch (NumberFormatException ignored) {
+        }
+
+        try {
+            return Math.max(0, Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME)).toMillis());
+        } catch (DateTimeParseException ignored) {
+            return 0;
+        }
+    }
+
+    /**
+     * Releases the connection used by a response which body won't be read.
+     */
+    private static void discard(final HttpResponse<?> response) {
+        if (response.body() instanceof InputStream) {
+            try {
+                ((InputStream) response.body()).close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Sends an idempotent read, hedging it if it takes longer than the configured percentile of the recent reads.
+     * The hedging request is only sent if an in-flight request slot is immediately available.
+     *
+     * @return the future first successful response (the other one being discarded), or an error response if no
+     * request succeeded
+     */
+    private <B> CompletableFuture<HttpResponse<B>> exchangeHedged(final HttpRequest request, final HttpResponse.BodyHandler<B> bodyHandler) {
+        final long start = System.nanoTime();
+        final CompletableFuture<HttpResponse<B>> primary = exchange(request, bodyHandler, true, 0);
+        primary.thenAccept(r -> readLatencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+        final long threshold = retryPolicy.getHedgePercentile() == 0 ? -1 : readLatencies.percentile(retryPolicy.getHedgePercentile());
+        if (threshold < 0) {
+            return primary;
+        }
+
+        final CompletableFuture<HttpResponse<B>> result = new CompletableFuture<>();
+        final AtomicInteger outstanding = new AtomicInteger(1);
+        final AtomicReference<HttpResponse<B>> failed = new AtomicReference<>();
+        primary.whenComplete((r, t) -> offer(result, outstanding, failed, r, t));
+
+        CompletableFuture.delayedExecutor(threshold, TimeUnit.MILLISECONDS, executor).execute(() -> {
+            if (result.isDone() || !inFlightRequests.tryAcquire()) return;
+
+            hedgedRequests.increment();
+            outstanding.incrementAndGet();
+            exchange(request, bodyHandler, true, 0).whenComplete((r, t) -> {
+                inFlightRequests.release();
+                offer(result, outstanding, failed, r, t);
+            });
+        });
+
+        return result;
+    }
+
+    /**
+     * Completes the hedged read with the first successful response. An error response is only kept in case no attempt
+     * succeeds: a fast failure of one request doesn't win over a slower success of the other one.
+     */
+    private static <B> void offer(final CompletableFuture<HttpResponse<B>> result, final AtomicInteger outstanding, final AtomicReference<HttpResponse<B>> failed,
+                                  final HttpResponse<B> response, final Throwable throwable) {
+        final boolean last = outstanding.decrementAndGet() == 0;
+        if (response != null && response.statusCode() / 100 == 2) {
+            if (!result.complete(response)) {
+                discard(response);
+            }
+        } else if (response != null && !failed.compareAndSet(null, response)) {
+            discard(response);
+        }
+
+        if (last) {
+            final HttpResponse<B> failure = failed.getAndSet(null);
+            if (failure != null) {
+                if (!result.complete(failure)) {
+                    discard(failure);
+                }
+            } else if (throwable != null) {
+                result.completeExceptionally(throwable instanceof CompletionException ? throwable.getCause() : throwable);
+            }
+        }
+    }
+
+    /**
+     * Fixed size window of the most recent latencies.
+     */
+    private static class LatencyWindow {
+        private static final int SIZE = 256;
+
+        /**
+         * Percentiles aren't meaningful with fewer samples.
+         */
+        private static final int MIN_SAMPLES = 20;
+
+        private final long[] latencies = new long[SIZE];
+        private int count;
+        private int next;
+
+        synchronized void add(final long latencyMillis) {
+            latencies[next] = latencyMillis;
+            next = (next + 1) % SIZE;
+            count = Math.min(count + 1, SIZE);
+        }
+
+        /**
+         * @return the given percentile of the recent latencies in milliseconds, -1 if not enough latencies are known
+         */
+        synchronized long percentile(final int percentile) {
+            if (count < MIN_SAMPLES) return -1;
+
+            final long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, count * percentile / 100)];
+        }
+    }
+
+    /**
+     * @param response the response which body is a stream
+     * @return the body stream, decompressed if the response is gzip encoded
+     * @throws IOException if the gzip header can't be read
+     */
+    private static InputStream decode(final HttpResponse<InputStream> response) throws IOException {
+        return "gzip".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse("")) ?
+                new GZIPInputStream(response.body(), STREAM_BUFFER_SIZE) : response.body();
+    }
+
+    /**
+     * Sends a request and returns the response body as a stream, decompressed if needed.
+     *
+     * @param request            the request to send (possibly accepting gzip encoding)
+     * @param expectedStatusCode the status code of a successful response
+     * @param read               whether the request is an idempotent read, retried and hedged then
+     * @return the response body stream to close once read
+     * @throws Exception if the request failed
+     */
+    private InputStream sendForStream(final HttpRequest request, final int expectedStatusCode, final boolean read) throws Exception {
+        final HttpResponse<InputStream> response;
+        inFlightRequests.acquireBlocking();
+        try {
+            response = await(read ? exchangeHedged(request, HttpResponse.BodyHandlers.ofInputStream()) :
+                    exchange(request, HttpResponse.BodyHandlers.ofInputStream(), isIdempotent(request), 0));
+        } finally {
+            inFlightRequests.release();
+        }
+
+        final InputStream body = decode(response);
+
+        if (response.statusCode() != expectedStatusCode) {
+            try (InputStream in = body) {
+                throw new RuntimeException("Request was not successful (" + response.statusCode() + "):\n" + new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        return body;
+    }
+
+    /**
+     * Sends a request asynchronously once an in-flight request slot is available, without blocking the caller while
+     * waiting for it.
+     *
+     * @param request      the request to send
+     * @param handler      the response processing
+     * @param errorMessage the message of the exception completing the future in case of failure
+     * @return the future response body
+     */
+    private <T> CompletableFuture<T> sendAsync(final HttpRequest request, final ResponseHandler<String, T> handler, final String errorMessage) {
+        return sendAsync(request, HttpResponse.BodyHandlers.ofString(), handler, errorMessage);
+    }
+
+    private <B, T> CompletableFuture<T> sendAsync(final HttpRequest request, final HttpResponse.BodyHandler<B> bodyHandler, final ResponseHandler<B, T> handler, final String errorMessage) {
+        return inFlightRequests.acquire().thenCompose(permit -> exchange(request, bodyHandler, isIdempotent(request), 0).handle((response, throwable) -> {
+            try {
+                if (throwable != null) {
+                    throw new CompletionException(new RuntimeException(errorMessage, throwable instanceof CompletionException ? throwable.getCause() : throwable));
+                }
+
+                try {
+                    return handler.handle(response);
+                } catch (Exception e) {
+                    throw new CompletionException(new RuntimeException(errorMessage, e));
+                }
+            } finally {
+                // streamed bodies are consumed by the handler: release the slot only then
+                inFlightRequests.release();
+            }
+        }));
+    }
+
+    /**
+     * Stops the threads of the underlying HTTP client. The client itself has no close method on Java 11: its pooled
+     * connections are only released once it's garbage collected (or closed by the server when idle). This instance
+     * can't be used anymore afterward.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
 }
@@ -0,0 +1,185 @@
+package com.oracle.dragon.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Additive increase/multiplicative decrease (AIMD) limit of the number of concurrent write requests.
+ * <p>
+ * Each healthy request grows the limit by <code>1/limit</code> (so by 1 per round of requests) while a throttled or
+ * failed request, or a request much slower than the usual ones, halves it (at most once per round trip).
+ * <p>
+ * Requests over the limit wait in arrival order without blocking their caller: their permit is a future completed
+ * once enough requests in flight are released.
+ */
+class AdaptiveConcurrencyLimit {
+    private static final double BACKOFF_RATIO = 0.5;
+
+    /**
+     * A latency above this multiple of the baseline latency is a spike.
+     */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    /**
+     * Weight of a new latency in the baseline latency (exponential moving average).
+     */
+    private static final double SMOOTHING = 0.05;
+
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final Executor executor;
+    private final Deque<CompletableFuture<Long>> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+
+    private double baselineLatencyNanos;
+    private int samples;
+    private long lastDecreaseNanos;
+
+    private long documents;
+    private boolean started;
+    private long firstAcquireNanos;
+    private long lastReleaseNanos;
+
+    /**
+     * @param executor the executor completing the permits of the waiting requests (so that the thread releasing a
+     *                 request doesn't send the next one)
+     */
+    AdaptiveConcurrencyLimit(final int minLimit, final int initialLimit, final int maxLimit, final Executor executor) {
+        this.executor = executor;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the future start time of the request, once the number of requests in flight is below the limit
+     */
+    CompletableFuture<Long> acquire() {
+        synchronized (this) {
+            if (inFlight < (int) limit && waiters.isEmpty()) {
+                return CompletableFuture.completedFuture(start());
+            }
+
+            final CompletableFuture<Long> permit = new CompletableFuture<>();
+            waiters.add(permit);
+            return permit;
+        }
+    }
+
+    private long start() {
+        inFlight++;
+
+        final long now = System.nanoTime();
+        if (!started) {
+            started = true;
+            firstAcquireNanos = now;
+        }
+        return now;
+    }
+
+    /**
+     * Adjusts the limit according to the outcome of a request.
+     *
+     * @param startNanos the start time given by {@link #acquire()}
+     * @param count      the number of documents written by the request
+     * @param succeeded  whether the request succeeded
+     * @param throttled  whether the database throttled requests (HTTP 429/503) meanwhile
+     */
+    void release(final long startNanos, final int count, final boolean succeeded, final boolean throttled) {
+        final List<CompletableFuture<Long>> granted = new ArrayList<>();
+        final List<Long> starts = new ArrayList<>();
+        synchronized (this) {
+            adjust(startNanos, count, succeeded, throttled);
+            grant(granted, starts);
+        }
+        handOver(granted, starts);
+    }
+
+    private void adjust(final long startNanos, final int count, final boolean succeeded, final boolean throttled) {
+        final long now = System.nanoTime();
+        final long latency = now - startNanos;
+        inFlight--;
+        lastReleaseNanos = now;
+
+        final boolean spike = samples >= WARMUP_SAMPLES && latency > LATENCY_TOLERANCE * baselineLatencyNanos;
+
+        if (succeeded) {
+            documents += count;
+
+            if (!spike) {
+                baselineLatencyNanos = samples == 0 ? latency : (1 - SMOOTHING) * baselineLatencyNanos + SMOOTHING * latency;
+                samples++;
+            }
+        }
+
+        if (!succeeded || throttled || spike) {
+            // one decrease per round trip: the requests sent along with this one report the same congestion
+            if (now - lastDecreaseNanos > baselineLatencyNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                lastDecreaseNanos = now;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    /**
+     * Starts as many waiting requests as the limit allows.
+     */
+    private void grant(final List<CompletableFuture<Long>> granted, final List<Long> starts) {
+        while (inFlight < (int) limit && !waiters.isEmpty()) {
+            granted.add(waiters.poll());
+            starts.add(start());
+        }
+    }
+
+    private void handOver(final List<CompletableFuture<Long>> granted, final List<Long> starts) {
+        for (int i = 0; i < granted.size(); i++) {
+            final CompletableFuture<Long> permit = granted.get(i);
+            final long start = starts.get(i);
+            try {
+                executor.execute(() -> {
+                    // the waiter gave up: its slot goes to the next one
+                    if (!permit.complete(start)) {
+                        cancel();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permit.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void cancel() {
+        final List<CompletableFuture<Long>> granted = new ArrayList<>();
+        final List<Long> starts = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            grant(granted, starts);
+        }
+        handOver(granted, starts);
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return the number of documents written per second since the first request
+     */
+    synchronized double getDocumentsPerSecond() {
+        if (!started || lastReleaseNanos - firstAcquireNanos <= 0) return 0;
+
+        return documents * 1_000_000_000.0 / (lastReleaseNanos - firstAcquireNanos);
+    }
+}
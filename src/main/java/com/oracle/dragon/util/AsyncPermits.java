@@ -0,0 +1,97 @@
+package com.oracle.dragon.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Fixed number of permits handed over in arrival order without blocking: a permit which isn't immediately available
+ * is a future completed once another one is released.
+ */
+class AsyncPermits {
+    private final Executor executor;
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int available;
+
+    /**
+     * @param permits  the number of permits
+     * @param executor the executor completing the futures of the waiting acquisitions (so that the thread releasing a
+     *                 permit doesn't run the work of the next holder)
+     */
+    AsyncPermits(final int permits, final Executor executor) {
+        this.available = Math.max(1, permits);
+        this.executor = executor;
+    }
+
+    /**
+     * @return the future completed once a permit is acquired, to be released afterward
+     */
+    CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (available > 0 && waiters.isEmpty()) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+
+            final CompletableFuture<Void> permit = new CompletableFuture<>();
+            waiters.add(permit);
+            return permit;
+        }
+    }
+
+    /**
+     * Waits for a permit, for callers which are synchronous anyway.
+     *
+     * @throws InterruptedException if interrupted while waiting (no permit being held then)
+     */
+    void acquireBlocking() throws InterruptedException {
+        final CompletableFuture<Void> permit = acquire();
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            // a permit handed over meanwhile is given back
+            if (!permit.cancel(false)) {
+                release();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return true if a permit was immediately available (and is now held)
+     */
+    synchronized boolean tryAcquire() {
+        if (available > 0 && waiters.isEmpty()) {
+            available--;
+            return true;
+        }
+        return false;
+    }
+
+    void release() {
+        final CompletableFuture<Void> next;
+        synchronized (this) {
+            next = waiters.poll();
+            if (next == null) {
+                available++;
+                return;
+            }
+        }
+
+        try {
+            executor.execute(() -> {
+                // the waiter gave up: the permit goes to the next one
+                if (!next.complete(null)) {
+                    release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            next.completeExceptionally(e);
+        }
+    }
+}
@@ -24,7 +24,6 @@ import com.oracle.bmc.objectstorage.requests.PutObjectRequest;
 import com.oracle.bmc.objectstorage.responses.CreateBucketResponse;
 import com.oracle.bmc.objectstorage.responses.GetNamespaceResponse;
 import com.oracle.bmc.objectstorage.responses.ListBucketsResponse;
-import com.oracle.bmc.objectstorage.transfer.UploadConfiguration;
 import com.oracle.bmc.objectstorage.transfer.UploadManager;
 import com.oracle.bmc.workrequests.WorkRequestClient;
 import com.oracle.bmc.workrequests.model.WorkRequestError;
@@ -32,17 +31,38 @@ import com.oracle.bmc.workrequests.requests.GetWorkRequestRequest;
 import com.oracle.bmc.workrequests.requests.ListWorkRequestErrorsRequest;
 import com.oracle.bmc.workrequests.responses.GetWorkRequestResponse;
 import com.oracle.bmc.workrequests.responses.ListWorkRequestErrorsResponse;
+import com.oracle.dragon.model.LoadManifestJob;
 import com.oracle.dragon.model.LocalDragonConfiguration;
+import com.oracle.dragon.model.ORDSSQLServiceBind;
 import com.oracle.dragon.stacks.CodeGenerator;
 import com.oracle.dragon.stacks.StackType;
 import com.oracle.dragon.util.exception.*;
 
 import java.io.*;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.oracle.dragon.util.Console.*;
 
@@ -58,8 +78,46 @@ public class DSSession {
 
     public static final String CONFIGURATION_FILENAME = "dragon.config";
     public static final String LOCAL_CONFIGURATION_FILENAME = "local_dragon.config.json";
+    public static final String LOAD_MANIFEST_FILENAME = "local_dragon.load.json";
 
     private static final int OCI_ALWAYS_FREE_DATABASE_NUMBER_LIMIT = 2;
+
+    public static final int DEFAULT_LOAD_PARALLEL_COLLECTIONS = 4;
+    public static final int DEFAULT_LOAD_MAX_UPLOAD_THREADS = 8;
+    public static final int DEFAULT_LOAD_MAX_CONCURRENT_COPIES = 2;
+    public static final int DEFAULT_LOAD_SPLIT_SIZE_MB = 512;
+    public static final int DEFAULT_LOAD_SPLIT_PARALLELISM = 4;
+
+    private static final long LOAD_JOB_POLL_INTERVAL_MS = 5000;
+
+    /**
+     * Object Storage credential creation, the user name and auth token being passed as bind variables so that they
+     * never appear inside the SQL text.
+     */
+    private static final String CREATE_CREDENTIAL_STATEMENTS =
+            "    DBMS_CLOUD.CREATE_CREDENTIAL(credential_name => '{name}', username => :username, password => :password);\n" +
+            "    COMMIT;";
+
+    /**
+     * Stores the file URI list of a collection to load inside a scheduler job, creating the staging table if needed.
+     */
+    private static final String STAGE_FILE_URI_LIST_STATEMENT =
+            "DECLARE\n" +
+            "    table_exists EXCEPTION;\n" +
+            "    PRAGMA EXCEPTION_INIT(table_exists, -955);\n" +
+            "BEGIN\n" +
+            "    BEGIN\n" +
+            "        EXECUTE IMMEDIATE 'CREATE TABLE dragon_load_files (collection_name VARCHAR2(128) PRIMARY KEY, file_uri_list CLOB)';\n" +
+            "    EXCEPTION\n" +
+            "        WHEN table_exists THEN NULL;\n" +
+            "    END;\n" +
+            "    EXECUTE IMMEDIATE 'MERGE INTO dragon_load_files f USING (SELECT :1 AS collection_name, :2 AS file_uri_list FROM dual) n ' ||\n" +
+            "                      'ON (f.collection_name = n.collection_name) ' ||\n" +
+            "                      'WHEN MATCHED THEN UPDATE SET f.file_uri_list = n.file_uri_list ' ||\n" +
+            "                      'WHEN NOT MATCHED THEN INSERT (collection_name, file_uri_list) VALUES (n.collection_name, n.file_uri_list)'\n" +
+            "        USING :collection_name, :file_uri_list;\n" +
+            "    COMMIT;\n" +
+            "END;";
     private static final String CONFIG_REGION = "region";
     private static final String CONFIG_FINGERPRINT = "fingerprint";
     private static final String CONFIG_DATABASE_TYPE = "database_type";
@@ -67,12 +125,37 @@ public class DSSession {
     private static final String CONFIG_DATABASE_PASSWORD = "database_password";
     private static final String CONFIG_DATABASE_LICENSE_TYPE = "database_license_type";
     private static final String CONFIG_COLLECTIONS = "database_collections";
+    private static final String CONFIG_COLLECTION_PREFIX = "database_collection_";
+    private static final String CONFIG_COLLECTION_KEY_ASSIGNMENT = "key_assignment";
+    private static final String CONFIG_COLLECTION_VERSIONING = "versioning";
+    private static final String CONFIG_COLLECTION_CONTENT = "content";
+    private static final String CONFIG_COLLECTION_LAST_MODIFIED = "last_modified";
+    private static final String CONFIG_COLLECTION_LOAD_ENGINE = "load_engine";
     private static final String CONFIG_COMPARTMENT_ID = "compartment_id";
     private static final String CONFIG_TENANCY_ID = "tenancy";
     public static final String CONFIG_KEY_FILE = "key_file";
     private static final String CONFIG_USER = "user";
     private static final String CONFIG_AUTH_TOKEN = "auth_token";
     private static final String CONFIG_DATA_PATH = "data_path";
+    private static final String CONFIG_DATA_PATH_RECURSIVE = "data_path_recursive";
+    private static final String CONFIG_LOAD_PARALLEL_COLLECTIONS = "load_parallel_collections";
+    private static final String CONFIG_LOAD_MAX_UPLOAD_THREADS = "load_max_upload_threads";
+    private static final String CONFIG_LOAD_MAX_CONCURRENT_COPIES = "load_max_concurrent_copies";
+    private static final String CONFIG_LOAD_COMPRESSION = "load_compression";
+    private static final String CONFIG_LOAD_MINIFY = "load_minify";
+    private static final String CONFIG_LOAD_VALIDATE = "load_validate";
+    private static final String CONFIG_LOAD_SPLIT_SIZE_MB = "load_split_size_mb";
+    private static final String CONFIG_LOAD_SPLIT_PARALLELISM = "load_split_parallelism";
+    private static final String CONFIG_LOAD_UPLOAD_TUNING = "load_upload_tuning";
+    private static final String CONFIG_LOAD_UPLOAD_PART_SIZE_MB = "load_upload_part_size_mb";
+    private static final String CONFIG_REST_MAX_CONCURRENT_REQUESTS = "rest_max_concurrent_requests";
+    private static final String CONFIG_REST_MAX_RETRIES = "rest_max_retries";
+    private static final String CONFIG_REST_RETRY_MAX_BACKOFF_MS = "rest_retry_max_backoff_ms";
+    private static final String CONFIG_REST_HEDGE_PERCENTILE = "rest_hedge_percentile";
+    private static final String CONFIG_SERVICE_LEVEL_PROVISIONING = "service_level_provisioning";
+    private static final String CONFIG_SERVICE_LEVEL_LOAD = "service_level_load";
+    private static final String CONFIG_SQL_BATCH_MAX_BYTES = "sql_batch_max_bytes";
+    private static final String CONFIG_SQL_BATCH_MAX_STATEMENTS = "sql_batch_max_statements";
 
     // Code generation
     private boolean createStack;
@@ -91,7 +174,11 @@ public class DSSession {
     public enum Operation {
         CreateDatabase,
         DestroyDatabase,
-        LoadData
+        LoadData,
+        RunSQLScript,
+        UpdateDocuments,
+        DeleteDocuments,
+        AttachLoads
     }
 
     public enum Section {
@@ -104,6 +191,9 @@ public class DSSession {
         DatabaseConfiguration("Database configuration"),
         ObjectStorageConfiguration("Object storage configuration"),
         LoadDataIntoCollections("Data loading"),
+        SQLScript("SQL script"),
+        DocumentsUpdate("Documents update"),
+        DocumentsDeletion("Documents deletion"),
         LocalConfiguration("Local configuration"),
         CreateStack("Stack creation");
 
@@ -149,8 +239,14 @@ public class DSSession {
     private DatabaseClient dbClient;
     private WorkRequestClient workRequestClient;
     private ObjectStorageClient objectStorageClient;
+    private UploadTuner uploadTuner;
     private IdentityClient identityClient;
 
+    /**
+     * REST services per database user and endpoint, kept open for the whole session to reuse their connections.
+     */
+    private final Map<String, ADBRESTService> restServices = new HashMap<>();
+
     private String databaseUserName = "dragon";
 
     /**
@@ -188,12 +284,92 @@ public class DSSession {
      */
     private boolean load = false;
 
+    /**
+     * Don't wait for the loads run by scheduler jobs.
+     */
+    private boolean detach = false;
+
     /**
      * Display information about region, compartment, user...
      */
     private boolean info = false;
 
     private File dataPath = new File(".");
+    private boolean dataPathRecursive;
+
+    /**
+     * Number of collections uploaded at the same time, threads uploading file parts to Object Storage and database
+     * sessions loading collections.
+     */
+    private int loadParallelCollections = DEFAULT_LOAD_PARALLEL_COLLECTIONS;
+    private int loadMaxUploadThreads = DEFAULT_LOAD_MAX_UPLOAD_THREADS;
+    private int loadMaxConcurrentCopies = DEFAULT_LOAD_MAX_CONCURRENT_COPIES;
+
+    /**
+     * Compress data files with gzip before uploading them, removing whitespaces outside strings if minify is set.
+     */
+    private boolean loadGzip;
+    private boolean loadMinify;
+
+    /**
+     * Check that data files hold one JSON object per line before uploading anything.
+     */
+    private boolean loadValidate = true;
+
+    /**
+     * Data files larger than this size (bytes) are cut into parts uploaded in parallel and loaded in parallel.
+     */
+    private long loadSplitSize = DEFAULT_LOAD_SPLIT_SIZE_MB * 1024L * 1024L;
+    private int loadSplitParallelism = DEFAULT_LOAD_SPLIT_PARALLELISM;
+    private boolean loadUploadTuning = true;
+    /**
+     * 0 to let the upload tuner choose the part size of each file.
+     */
+    private int loadUploadPartSizeMB;
+
+    /**
+     * Progress of the current load.
+     */
+    private int collectionsToLoad;
+    private int collectionsLoaded;
+
+    /**
+     * Maximum number of REST requests sent concurrently to the database by each REST service.
+     */
+    private int restMaxConcurrentRequests = ADBRESTService.DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+    /**
+     * Database services used to set up the database and to load data (null to keep the ORDS one), and by the
+     * generated application.
+     */
+    private ServiceLevel serviceLevelProvisioning;
+    private ServiceLevel serviceLevelLoad = ServiceLevel.HIGH;
+
+    /**
+     * Storage options of the collections to create, by collection name (default SODA metadata if absent).
+     */
+    private final Map<String, SODACollectionMetadata> collectionsMetadata = new HashMap<>();
+    private final Map<String, LoadEngine> collectionsLoadEngine = new HashMap<>();
+
+    /**
+     * Retries of throttled REST requests and hedging of slow reads.
+     */
+    private final RetryPolicy restRetryPolicy = new RetryPolicy();
+
+    /**
+     * SQL script to run once the database is available (if any).
+     */
+    private File sqlScript;
+
+    /**
+     * Collection, QBE and JSON Patch of the documents to update or delete inside the database.
+     */
+    private String bulkCollectionName;
+    private String bulkQBE;
+    private String bulkPatch;
+
+    private int sqlBatchMaxBytes = SQLScriptRunner.DEFAULT_MAX_BATCH_BYTES;
+    private int sqlBatchMaxStatements = SQLScriptRunner.DEFAULT_MAX_BATCH_STATEMENTS;
 
     static {
         final String osName = System.getProperty("os.name").toLowerCase();
@@ -234,7 +410,7 @@ public class DSSession {
         }
     }
 
-    public void analyzeCommandLineParameters(String[] args) throws MissingDatabaseNameParameterException, MissingProfileNameParameterException {
+    public void analyzeCommandLineParameters(String[] args) throws MissingDatabaseNameParameterException, MissingProfileNameParameterException, MissingSQLScriptParameterException, SQLScriptNotFoundException, MissingBulkOperationParameterException {
         section = Section.CommandLineParameters;
         section.print("analyzing");
         for (int i = 0; i < args.length; i++) {
@@ -273,6 +449,58 @@ public class DSSession {
                     }
                     break;
 
+                case "-detach":
+                case "--detach":
+                    detach = true;
+                    break;
+
+                case "-attach":
+                case "--attach":
+                    operation = Operation.AttachLoads;
+                    break;
+
+                case "-sql":
+                case "--sql":
+                    if (i + 1 < args.length) {
+                        sqlScript = new File(args[++i]);
+                        if (!sqlScript.isFile()) {
+                            section.printlnKO();
+                            throw new SQLScriptNotFoundException(sqlScript.getPath());
+                        }
+                        if (localConfiguration != null && operation == Operation.CreateDatabase) {
+                            operation = Operation.RunSQLScript;
+                        }
+                    } else {
+                        section.printlnKO();
+                        throw new MissingSQLScriptParameterException();
+                    }
+                    break;
+
+                case "-update":
+                case "--update":
+                    if (i + 3 < args.length) {
+                        bulkCollectionName = args[++i];
+                        bulkQBE = args[++i];
+                        bulkPatch = args[++i];
+                        operation = Operation.UpdateDocuments;
+                    } else {
+                        section.printlnKO();
+                        throw new MissingBulkOperationParameterException("-update <collection> <QBE> <JSON Patch>");
+                    }
+                    break;
+
+                case "-delete":
+                case "--delete":
+                    if (i + 2 < args.length) {
+                        bulkCollectionName = args[++i];
+                        bulkQBE = args[++i];
+                        operation = Operation.DeleteDocuments;
+                    } else {
+                        section.printlnKO();
+                        throw new MissingBulkOperationParameterException("-delete <collection> <QBE>");
+                    }
+                    break;
+
                 case "-info":
                 case "--info":
                     info = true;
@@ -321,6 +549,11 @@ public class DSSession {
         println("  -profile <profile name> \tto choose the given profile name from " + CONFIGURATION_FILENAME + " (instead of DEFAULT)");
         println("  -db <database name>     \tto denote the database name to create");
         println("  -load                   \tloads corresponding data into collections");
+        println("  -detach                 \twith -load, doesn't wait for the loads run by scheduler jobs");
+        println("  -attach                 \twaits for the loads run by scheduler jobs");
+        println("  -sql <script file>      \truns the given SQL script (batching its statements)");
+        println("  -update <collection> <QBE> <JSON Patch>\tpatches the documents matching the QBE inside the database");
+        println("  -delete <collection> <QBE>\tdeletes the documents matching the QBE inside the database");
         println("  -create-react-app [name]\tcreates a React frontend (instead of frontend)");
         println("  -destroy                \tto destroy the database");
     }
@@ -383,8 +616,57 @@ public class DSSession {
         println(" # A list of coma separated JSON collection name(s) that you wish to get right after database creation");
         println("# database_collections=");
         println();
+        println(" # Uncomment to change the storage of all the collections (database_collections_<option>) or of one collection (database_collection_<name>_<option>)");
+        println("# database_collections_key_assignment=uuid|guid|client (client: collections without data files to load only)");
+        println("# database_collections_versioning=uuid|timestamp|md5|sha256|sequential|none");
+        println("# database_collections_content=blob|oson|json");
+        println("# database_collections_last_modified=true|false");
+        println();
+        println(" # Uncomment to load the data files inside scheduler jobs (see -detach and -attach) or directly with SODA bulk inserts instead of staging them into Object Storage (database_collections_load_engine or database_collection_<name>_load_engine); with rest, the lines inserted are recorded in the load manifest so that a new load after a failure only inserts the missing ones");
+        println("# database_collections_load_engine=object_storage|scheduler|rest");
+        println();
         println(" # Path to a folder where data to load into collections can be found (default to current directory)");
         println("data_path=.");
+        println(" # Uncomment to also look for data files in the sub-folders of the data path");
+        println("# data_path_recursive=false|true");
+        println();
+        println(" # Uncomment to change how many collections are uploaded at the same time (sharing a number of upload threads) while the uploaded ones are loaded by a number of database sessions");
+        println("# load_parallel_collections=" + DEFAULT_LOAD_PARALLEL_COLLECTIONS);
+        println("# load_max_upload_threads=" + DEFAULT_LOAD_MAX_UPLOAD_THREADS);
+        println("# load_max_concurrent_copies=" + DEFAULT_LOAD_MAX_CONCURRENT_COPIES);
+        println();
+        println(" # Uncomment to compress data files with gzip before uploading them, optionally removing whitespaces outside JSON strings");
+        println("# load_compression=none|gzip");
+        println("# load_minify=false|true");
+        println();
+        println(" # Uncomment to skip the validation of data files (one JSON object per line) done before uploading them");
+        println("# load_validate=true|false");
+        println();
+        println(" # Uncomment to change the size (MB, 1 to 1024) above which data files are cut into parts uploaded and loaded in parallel, and how many parts are uploaded at the same time (parts are read from a memory mapping of the file, not copied on disk, but the OCI SDK holds each uploaded chunk of an uncompressed part in memory)");
+        println("# load_split_size_mb=" + DEFAULT_LOAD_SPLIT_SIZE_MB);
+        println("# load_split_parallelism=" + DEFAULT_LOAD_SPLIT_PARALLELISM);
+        println();
+        println(" # Uncomment to stop adjusting the number of upload threads (up to load_max_upload_threads) and the multipart upload part size to the measured throughput, or to force the part size (MB, " + UploadTuner.MIN_PART_SIZE_MB + " to " + UploadTuner.MAX_PART_SIZE_MB + ")");
+        println("# load_upload_tuning=true|false");
+        println("# load_upload_part_size_mb=" + UploadTuner.DEFAULT_PART_SIZE_MB);
+        println();
+        println(" # Uncomment to change the maximum number of concurrent REST requests sent to the database (default to " + ADBRESTService.DEFAULT_MAX_IN_FLIGHT_REQUESTS + ")");
+        println("# rest_max_concurrent_requests=" + ADBRESTService.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+        println();
+        println(" # Uncomment to run database setup and data loading on another database service (high, medium, low, tp or tpurgent)");
+        println("# service_level_provisioning=low");
+        println("# service_level_load=high");
+        println();
+        println(" # Uncomment to change how throttled (HTTP 429/503) REST requests are retried with exponential backoff (0 retries to disable)");
+        println("# rest_max_retries=" + RetryPolicy.DEFAULT_MAX_RETRIES);
+        println("# rest_retry_max_backoff_ms=" + RetryPolicy.DEFAULT_MAX_BACKOFF_MS);
+        println();
+        println(" # Uncomment to hedge REST queries slower than the given latency percentile (e.g. 95)");
+        println("# rest_hedge_percentile=" + RetryPolicy.DEFAULT_HEDGE_PERCENTILE);
+        println();
+        println(" # Uncomment to change the maximum size (bytes) and number of statements sent per call when running a SQL script with -sql");
+        println("# sql_batch_max_bytes=" + SQLScriptRunner.DEFAULT_MAX_BATCH_BYTES);
+        println("# sql_batch_max_statements=" + SQLScriptRunner.DEFAULT_MAX_BATCH_STATEMENTS);
         println();
     }
 
@@ -485,6 +767,90 @@ public class DSSession {
                 }
             }
 
+            if (configFile.get(CONFIG_LOAD_PARALLEL_COLLECTIONS) != null) {
+                loadParallelCollections = Integer.parseInt(configFile.get(CONFIG_LOAD_PARALLEL_COLLECTIONS));
+            }
+
+            if (configFile.get(CONFIG_LOAD_MAX_UPLOAD_THREADS) != null) {
+                loadMaxUploadThreads = Integer.parseInt(configFile.get(CONFIG_LOAD_MAX_UPLOAD_THREADS));
+            }
+
+            if (configFile.get(CONFIG_LOAD_MAX_CONCURRENT_COPIES) != null) {
+                loadMaxConcurrentCopies = Integer.parseInt(configFile.get(CONFIG_LOAD_MAX_CONCURRENT_COPIES));
+            }
+
+            if (configFile.get(CONFIG_LOAD_COMPRESSION) != null) {
+                loadGzip = "gzip".equalsIgnoreCase(configFile.get(CONFIG_LOAD_COMPRESSION).trim());
+            }
+
+            if (configFile.get(CONFIG_LOAD_MINIFY) != null) {
+                loadMinify = Boolean.parseBoolean(configFile.get(CONFIG_LOAD_MINIFY).trim());
+            }
+
+            if (configFile.get(CONFIG_LOAD_VALIDATE) != null) {
+                loadValidate = Boolean.parseBoolean(configFile.get(CONFIG_LOAD_VALIDATE).trim());
+            }
+
+            if (configFile.get(CONFIG_LOAD_SPLIT_SIZE_MB) != null) {
+                final long splitSizeMB = Long.parseLong(configFile.get(CONFIG_LOAD_SPLIT_SIZE_MB).trim());
+                if (splitSizeMB <= 0) {
+                    throw new ConfigurationWrongPositiveNumberException(CONFIG_LOAD_SPLIT_SIZE_MB, configFile.get(CONFIG_LOAD_SPLIT_SIZE_MB));
+                }
+                loadSplitSize = splitSizeMB * 1024L * 1024L;
+            }
+
+            if (configFile.get(CONFIG_LOAD_SPLIT_PARALLELISM) != null) {
+                loadSplitParallelism = Integer.parseInt(configFile.get(CONFIG_LOAD_SPLIT_PARALLELISM));
+            }
+
+            if (configFile.get(CONFIG_LOAD_UPLOAD_TUNING) != null) {
+                loadUploadTuning = Boolean.parseBoolean(configFile.get(CONFIG_LOAD_UPLOAD_TUNING).trim());
+            }
+
+            if (configFile.get(CONFIG_LOAD_UPLOAD_PART_SIZE_MB) != null) {
+                loadUploadPartSizeMB = Integer.parseInt(configFile.get(CONFIG_LOAD_UPLOAD_PART_SIZE_MB));
+            }
+
+            if (configFile.get(CONFIG_REST_MAX_CONCURRENT_REQUESTS) != null) {
+                restMaxConcurrentRequests = Integer.parseInt(configFile.get(CONFIG_REST_MAX_CONCURRENT_REQUESTS));
+            }
+
+            if (configFile.get(CONFIG_COLLECTIONS) != null) {
+                for (String collectionName : configFile.get(CONFIG_COLLECTIONS).split(",")) {
+                    final SODACollectionMetadata metadata = loadCollectionMetadata(collectionName);
+                    if (metadata != null) {
+                        collectionsMetadata.put(collectionName, metadata);
+                    }
+
+                    final String loadEngine = getCollectionParameter(collectionName, CONFIG_COLLECTION_LOAD_ENGINE);
+                    collectionsLoadEngine.put(collectionName, loadEngine == null ? LoadEngine.OBJECT_STORAGE :
+                            parseCollectionParameter(CONFIG_COLLECTION_LOAD_ENGINE, loadEngine, LoadEngine.class));
+                }
+            }
+
+            serviceLevelProvisioning = loadServiceLevel(CONFIG_SERVICE_LEVEL_PROVISIONING, serviceLevelProvisioning);
+            serviceLevelLoad = loadServiceLevel(CONFIG_SERVICE_LEVEL_LOAD, serviceLevelLoad);
+
+            if (configFile.get(CONFIG_REST_MAX_RETRIES) != null) {
+                restRetryPolicy.maxRetries(Integer.parseInt(configFile.get(CONFIG_REST_MAX_RETRIES)));
+            }
+
+            if (configFile.get(CONFIG_REST_RETRY_MAX_BACKOFF_MS) != null) {
+                restRetryPolicy.maxBackoff(Long.parseLong(configFile.get(CONFIG_REST_RETRY_MAX_BACKOFF_MS)));
+            }
+
+            if (configFile.get(CONFIG_REST_HEDGE_PERCENTILE) != null) {
+                restRetryPolicy.hedgePercentile(Integer.parseInt(configFile.get(CONFIG_REST_HEDGE_PERCENTILE)));
+            }
+
+            if (configFile.get(CONFIG_SQL_BATCH_MAX_BYTES) != null) {
+                sqlBatchMaxBytes = Integer.parseInt(configFile.get(CONFIG_SQL_BATCH_MAX_BYTES));
+            }
+
+            if (configFile.get(CONFIG_SQL_BATCH_MAX_STATEMENTS) != null) {
+                sqlBatchMaxStatements = Integer.parseInt(configFile.get(CONFIG_SQL_BATCH_MAX_STATEMENTS));
+            }
+
             if (load) {
                 if (configFile.get(CONFIG_DATA_PATH) != null) {
                     final File tempPath = new File(configFile.get(CONFIG_DATA_PATH));
@@ -499,6 +865,10 @@ public class DSSession {
 
                     dataPath = tempPath;
                 }
+
+                if (configFile.get(CONFIG_DATA_PATH_RECURSIVE) != null) {
+                    dataPathRecursive = Boolean.parseBoolean(configFile.get(CONFIG_DATA_PATH_RECURSIVE).trim());
+                }
             }
 
         } catch (java.io.FileNotFoundException fnfe) {
@@ -558,6 +928,28 @@ public class DSSession {
                 if (localConfiguration != null && localConfiguration.getDbName().equals(dbName)) {
                     initializeClients();
                     loadData();
+                    if (sqlScript != null) {
+                        runSQLScript(getADBRESTService(localConfiguration.getSqlDevWeb(), databaseUserName.toUpperCase()));
+                    }
+                }
+                break;
+
+            case RunSQLScript:
+                if (localConfiguration != null && localConfiguration.getDbName().equals(dbName)) {
+                    runSQLScript(getADBRESTService(localConfiguration.getSqlDevWeb(), databaseUserName.toUpperCase()));
+                }
+                break;
+
+            case AttachLoads:
+                if (localConfiguration != null && localConfiguration.getDbName().equals(dbName)) {
+                    attachLoads(getADBRESTService(localConfiguration.getSqlDevWeb(), databaseUserName.toUpperCase()));
+                }
+                break;
+
+            case UpdateDocuments:
+            case DeleteDocuments:
+                if (localConfiguration != null && localConfiguration.getDbName().equals(dbName)) {
+                    runBulkOperation(getADBRESTService(localConfiguration.getSqlDevWeb(), databaseUserName.toUpperCase()));
                 }
                 break;
         }
@@ -721,7 +1113,7 @@ public class DSSession {
 
         section.printlnOK(walletFileName);
 
-        final ADBRESTService rSQLS = new ADBRESTService(autonomousDatabase.getConnectionUrls().getSqlDevWebUrl(), databaseUserName.toUpperCase(), configFile.get(CONFIG_DATABASE_PASSWORD));
+        final ADBRESTService rSQLS = getADBRESTService(autonomousDatabase.getConnectionUrls().getSqlDevWebUrl(), databaseUserName.toUpperCase());
 
         // Save the local config file as early as possible in case of problems afterward so that one can destroy it
         section = Section.LocalConfiguration;
@@ -786,12 +1178,9 @@ public class DSSession {
         section.print("database setup");
 
         try {
-            rSQLS.execute(String.format(
-                    "BEGIN\n" +
-                            "    DBMS_CLOUD.CREATE_CREDENTIAL(credential_name => 'DRAGON_CREDENTIAL_NAME', username => '%s', password => '%s');\n" +
-                            "    COMMIT;\n" +
-                            "END;\n" +
-                            "/", userResponse.getUser().getEmail(), configFile.get(CONFIG_AUTH_TOKEN)));
+            rSQLS.execute(ServiceLevel.plsqlBlock(serviceLevelProvisioning, CREATE_CREDENTIAL_STATEMENTS.replace("{name}", "DRAGON_CREDENTIAL_NAME")),
+                    new ORDSSQLServiceBind("username", ORDSSQLServiceBind.VARCHAR2, userResponse.getUser().getEmail()),
+                    new ORDSSQLServiceBind("password", ORDSSQLServiceBind.VARCHAR2, configFile.get(CONFIG_AUTH_TOKEN)));
         } catch (RuntimeException re) {
             section.printlnKO();
             throw new ObjectStorageConfigurationFailedException();
@@ -805,17 +1194,15 @@ public class DSSession {
 
             section.print("database backup setup");
 
-            final ADBRESTService adminRSQLS = new ADBRESTService(autonomousDatabase.getConnectionUrls().getSqlDevWebUrl(), "ADMIN", configFile.get(CONFIG_DATABASE_PASSWORD));
+            final ADBRESTService adminRSQLS = getADBRESTService(autonomousDatabase.getConnectionUrls().getSqlDevWebUrl(), "ADMIN");
 
             try {
-                adminRSQLS.execute(String.format(
+                adminRSQLS.execute(ServiceLevel.plsqlBlock(serviceLevelProvisioning, CREATE_CREDENTIAL_STATEMENTS.replace("{name}", "BACKUP_CREDENTIAL_NAME")),
+                        new ORDSSQLServiceBind("username", ORDSSQLServiceBind.VARCHAR2, userResponse.getUser().getEmail()),
+                        new ORDSSQLServiceBind("password", ORDSSQLServiceBind.VARCHAR2, configFile.get(CONFIG_AUTH_TOKEN)));
+                adminRSQLS.execute(
                         "ALTER DATABASE PROPERTY SET default_bucket='https://swiftobjectstorage." + getRegionForURL() + ".oraclecloud.com/v1/" + namespaceName + "';\n" +
-                                "BEGIN\n" +
-                                "    DBMS_CLOUD.CREATE_CREDENTIAL(credential_name => 'BACKUP_CREDENTIAL_NAME', username => '%s', password => '%s');\n" +
-                                "    COMMIT;\n" +
-                                "END;\n" +
-                                "/\n" +
-                                "ALTER DATABASE PROPERTY SET default_credential='ADMIN.BACKUP_CREDENTIAL_NAME'", userResponse.getUser().getEmail(), configFile.get(CONFIG_AUTH_TOKEN)));
+                                "ALTER DATABASE PROPERTY SET default_credential='ADMIN.BACKUP_CREDENTIAL_NAME'");
             } catch (RuntimeException re) {
                 section.printlnKO();
                 throw new ObjectStorageConfigurationFailedException();
@@ -830,6 +1217,10 @@ public class DSSession {
             section.printlnOK();
         }
 
+        if (sqlScript != null) {
+            runSQLScript(rSQLS);
+        }
+
         // reload just saved JSON local configuration as POJO for further processing (create stack...)
         loadLocalConfiguration(false);
 
@@ -849,7 +1240,7 @@ public class DSSession {
         final GetNamespaceResponse namespaceResponse = objectStorageClient.getNamespace(GetNamespaceRequest.builder().build());
         final String namespaceName = namespaceResponse.getValue();
 
-        final ADBRESTService rSQLS = new ADBRESTService(localConfiguration.getSqlDevWeb(), databaseUserName.toUpperCase(), configFile.get(CONFIG_DATABASE_PASSWORD));
+        final ADBRESTService rSQLS = getADBRESTService(localConfiguration.getSqlDevWeb(), databaseUserName.toUpperCase());
 
         loadData(namespaceName, rSQLS);
 
@@ -860,25 +1251,74 @@ public class DSSession {
         loadCollections(namespaceName, rSQLS);
     }
 
+    private void runSQLScript(final ADBRESTService rSQLS) throws SQLScriptExecutionFailedException {
+        section = Section.SQLScript;
+        section.print(sqlScript.getName());
+
+        final SQLScriptRunner runner = new SQLScriptRunner(rSQLS, sqlScript, sqlBatchMaxBytes, sqlBatchMaxStatements, section);
+        try {
+            runner.run();
+        } catch (SQLScriptExecutionFailedException e) {
+            section.printlnKO(sqlScript.getName());
+            throw e;
+        }
+
+        section.printlnOK(String.format("%s: %d statements in %d calls", sqlScript.getName(), runner.getStatements(), runner.getBatches()));
+    }
+
+    private void runBulkOperation(final ADBRESTService rSQLS) throws DocumentsBulkOperationFailedException {
+        final boolean update = operation == Operation.UpdateDocuments;
+        section = update ? Section.DocumentsUpdate : Section.DocumentsDeletion;
+        section.print("collection " + bulkCollectionName);
+
+        final SODABulkOperationResult result;
+        try {
+            result = update ? rSQLS.updateDocuments(bulkCollectionName, bulkQBE, bulkPatch) : rSQLS.deleteDocuments(bulkCollectionName, bulkQBE);
+        } catch (RuntimeException re) {
+            section.printlnKO();
+            throw new DocumentsBulkOperationFailedException(bulkCollectionName, re);
+        }
+
+        section.printlnOK(String.format("%s: %d matched, %d %s", bulkCollectionName, result.getMatched(), result.getAffected(), update ? "updated" : "deleted"));
+    }
+
     private void createSchema(AutonomousDatabase adb) throws DatabaseUserCreationFailedException {
-        final ADBRESTService rSQLS = new ADBRESTService(adb.getConnectionUrls().getSqlDevWebUrl(), "ADMIN", configFile.get(CONFIG_DATABASE_PASSWORD));
+        final ADBRESTService rSQLS = getADBRESTService(adb.getConnectionUrls().getSqlDevWebUrl(), "ADMIN");
 
         try {
             rSQLS.execute(String.format("create user %s identified by \"%s\" DEFAULT TABLESPACE DATA TEMPORARY TABLESPACE TEMP;\n" +
                     "alter user %s quota unlimited on data;\n" +
                     "grant dwrole, create session, soda_app, alter session to %s;\n" +
                     "grant execute on CTX_DDL to %s;\n" +
-                    "grant select on v$mystat to %s;" +
+                    "grant select on v$mystat to %s;\n" +
+                    // without CS_SESSION (ORA-01031, ORA-00942), PL/SQL blocks run on the current service
                     "BEGIN\n" +
-                    "    ords_admin.enable_schema(p_enabled => TRUE, p_schema => '%s', p_url_mapping_type => 'BASE_PATH', p_url_mapping_pattern => '%s', p_auto_rest_auth => TRUE);\n" +
+                    "    EXECUTE IMMEDIATE 'grant execute on CS_SESSION to %s';\n" +
+                    "EXCEPTION\n" +
+                    "    WHEN OTHERS THEN\n" +
+                    "        IF SQLCODE NOT IN (-1031, -942) THEN RAISE; END IF;\n" +
                     "END;\n" +
-                    "/", databaseUserName, configFile.get(CONFIG_DATABASE_PASSWORD), databaseUserName, databaseUserName, databaseUserName, databaseUserName, databaseUserName.toUpperCase(), databaseUserName.toLowerCase()));
+                    "/\n" +
+                    ServiceLevel.plsqlBlock(serviceLevelProvisioning,
+                    "    ords_admin.enable_schema(p_enabled => TRUE, p_schema => '%s', p_url_mapping_type => 'BASE_PATH', p_url_mapping_pattern => '%s', p_auto_rest_auth => TRUE);") + "\n" +
+                    "/", databaseUserName, configFile.get(CONFIG_DATABASE_PASSWORD), databaseUserName, databaseUserName, databaseUserName, databaseUserName, databaseUserName, databaseUserName.toUpperCase(), databaseUserName.toLowerCase()));
         } catch (RuntimeException re) {
             section.printlnKO();
             throw new DatabaseUserCreationFailedException(re);
         }
     }
 
+    /**
+     * Returns the REST service for the given database user, creating it on first use.
+     *
+     * @param sqlDevWebUrl the SQL Developer Web URL of the database
+     * @param user         the database user to authenticate with
+     * @return the REST service shared by all the calls of this session for this user
+     */
+    private ADBRESTService getADBRESTService(final String sqlDevWebUrl, final String user) {
+        return restServices.computeIfAbsent(user + "@" + sqlDevWebUrl, k -> new ADBRESTService(sqlDevWebUrl, user, configFile.get(CONFIG_DATABASE_PASSWORD), restMaxConcurrentRequests, restRetryPolicy));
+    }
+
     private String getRegionForURL() {
         return region.replaceAll("_", "-").toLowerCase();
     }
@@ -896,17 +1336,112 @@ public class DSSession {
         }
     }
 
-    private void createCollections(ADBRESTService rSQLS, AutonomousDatabase adb) {
-        section.print("creating dragon collections");
-        rSQLS.createSODACollection("dragon");
+    private void createCollections(ADBRESTService rSQLS, AutonomousDatabase adb) throws CollectionsNotCreatedException {
+        // the dragon collection (default storage) holds the information about the database
+        final Map<String, SODACollectionMetadata> collections = new LinkedHashMap<>();
+        collections.put("dragon", null);
+        for (String collectionName : configFile.get(CONFIG_COLLECTIONS).split(",")) {
+            if (!"dragon".equals(collectionName)) {
+                collections.put(collectionName, collectionsMetadata.get(collectionName));
+            }
+        }
+
+        // all the collections are created in one call, existing ones being skipped
+        section.print(String.format("creating %d collections", collections.size()));
+        final Map<String, String> statuses = rSQLS.createSODACollections(collections);
+
+        int created = 0;
+        int existing = 0;
+        int failed = 0;
+        final StringBuilder failures = new StringBuilder();
+        for (Map.Entry<String, String> status : statuses.entrySet()) {
+            if (ADBRESTService.COLLECTION_CREATED.equals(status.getValue())) {
+                created++;
+            } else if (ADBRESTService.COLLECTION_EXISTS.equals(status.getValue())) {
+                existing++;
+            } else {
+                failed++;
+                failures.append('\n').append(status.getKey()).append(": ").append(status.getValue());
+            }
+        }
+
+        if (failed > 0) {
+            section.printlnKO();
+            throw new CollectionsNotCreatedException(failed, failures.toString());
+        }
+
         section.print("storing dragon information");
         rSQLS.insertDocument("dragon", getConfigurationAsJSON(adb, rSQLS));
 
-        for (String collectionName : configFile.get(CONFIG_COLLECTIONS).split(",")) {
-            if (!"dragon".equals(collectionName)) {
-                section.print("creating collection " + collectionName);
-                rSQLS.createSODACollection(collectionName);
+        section.print(String.format("%d collections created, %d already existing", created, existing));
+    }
+
+    /**
+     * Reads the storage options of a collection, the ones of the collection taking precedence over the ones of all the
+     * collections.
+     *
+     * @param collectionName the name of the collection
+     * @return the storage options or null if none is configured
+     * @throws ConfigurationWrongCollectionMetadataException if an option has a wrong value
+     */
+    private SODACollectionMetadata loadCollectionMetadata(String collectionName) throws ConfigurationWrongCollectionMetadataException {
+        final String keyAssignment = getCollectionParameter(collectionName, CONFIG_COLLECTION_KEY_ASSIGNMENT);
+        final String versioning = getCollectionParameter(collectionName, CONFIG_COLLECTION_VERSIONING);
+        final String content = getCollectionParameter(collectionName, CONFIG_COLLECTION_CONTENT);
+        final String lastModified = getCollectionParameter(collectionName, CONFIG_COLLECTION_LAST_MODIFIED);
+
+        if (keyAssignment == null && versioning == null && content == null && lastModified == null) {
+            return null;
+        }
+
+        final SODACollectionMetadata metadata = new SODACollectionMetadata();
+        if (keyAssignment != null) {
+            metadata.keyAssignment(parseCollectionParameter(CONFIG_COLLECTION_KEY_ASSIGNMENT, keyAssignment, SODACollectionMetadata.KeyAssignment.class));
+        }
+        if (versioning != null) {
+            metadata.versioning(parseCollectionParameter(CONFIG_COLLECTION_VERSIONING, versioning, SODACollectionMetadata.Versioning.class));
+        }
+        if (content != null) {
+            metadata.content(parseCollectionParameter(CONFIG_COLLECTION_CONTENT, content, SODACollectionMetadata.Content.class));
+        }
+        if (lastModified != null) {
+            if (!"true".equalsIgnoreCase(lastModified) && !"false".equalsIgnoreCase(lastModified)) {
+                throw new ConfigurationWrongCollectionMetadataException(CONFIG_COLLECTION_LAST_MODIFIED, lastModified, "true, false");
+            }
+            metadata.lastModified(Boolean.parseBoolean(lastModified));
+        }
+
+        return metadata;
+    }
+
+    private ServiceLevel loadServiceLevel(String parameter, ServiceLevel defaultLevel) throws ConfigurationWrongServiceLevelException {
+        final String value = configFile.get(parameter);
+        if (value == null) {
+            return defaultLevel;
+        }
+
+        try {
+            return ServiceLevel.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationWrongServiceLevelException(parameter, value);
+        }
+    }
+
+    private String getCollectionParameter(String collectionName, String option) {
+        final String value = configFile.get(CONFIG_COLLECTION_PREFIX + collectionName + "_" + option);
+        return value != null ? value : configFile.get(CONFIG_COLLECTIONS + "_" + option);
+    }
+
+    private static <E extends Enum<E>> E parseCollectionParameter(String option, String value, Class<E> values) throws ConfigurationWrongCollectionMetadataException {
+        try {
+            return Enum.valueOf(values, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            final StringBuilder expected = new StringBuilder();
+            for (E v : values.getEnumConstants()) {
+                if (expected.length() > 0) expected.append(", ");
+                expected.append(v.name().toLowerCase());
             }
+            throw new ConfigurationWrongCollectionMetadataException(option, value, expected.toString());
         }
     }
 
@@ -938,100 +1473,512 @@ public class DSSession {
         );
     }
 
+    /**
+     * Loads the collections through a two stage pipeline: collections are uploaded to OCI Object Storage by the upload
+     * stage while the ones already uploaded are copied into the database by the load stage, a bounded queue between
+     * them preventing uploads from running too far ahead. The first failure of either stage stops both.
+     */
     private void loadCollections(String namespaceName, ADBRESTService rSQLS) throws DSException {
-        UploadConfiguration uploadConfiguration =
-                UploadConfiguration.builder()
-                        .allowMultipartUploads(true)
-                        .allowParallelUploads(true)
-                        .build();
+        final LoadManifestTracker manifest;
+        final Map<String, List<File>> collectionsDataFiles = new LinkedHashMap<>();
+        try {
+            manifest = LoadManifestTracker.open(new File(LOAD_MANIFEST_FILENAME), dbName, dataPath);
 
-        UploadManager uploadManager = new UploadManager(objectStorageClient, uploadConfiguration);
+            final List<String> collectionNames = new ArrayList<>();
+            for (String collectionName : configFile.get(CONFIG_COLLECTIONS).split(",")) {
+                if (!"dragon".equals(collectionName)) {
+                    collectionNames.add(collectionName);
+                }
+            }
 
+            // find all names starting by <collection name>_XXX.json and stored in some data folder (specified in CONFIGURATION_FILENAME),
+            // largest collections and files first
+            final Map<String, List<File>> dataFiles = collectionNames.isEmpty() ? Collections.emptyMap() :
+                    new JSONCollectionFilenameFilter(collectionNames).scan(dataPath, dataPathRecursive);
 
-        for (String collectionName : configFile.get(CONFIG_COLLECTIONS).split(",")) {
-            if (!"dragon".equals(collectionName)) {
-                section.print("collection " + collectionName);
+            for (Map.Entry<String, List<File>> collection : dataFiles.entrySet()) {
+                // files already loaded by a previous run are skipped
+                final List<File> toLoad = manifest.getFilesToLoad(collection.getKey(), collection.getValue());
+                if (!toLoad.isEmpty()) {
+                    collectionsDataFiles.put(collection.getKey(), toLoad);
+                }
+            }
+        } catch (IOException e) {
+            section.printlnKO();
+            throw new LoadManifestException(LOAD_MANIFEST_FILENAME, e);
+        }
 
-                // find all names starting by <collection name>_XXX.json and stored in some data folder (specified in CONFIGURATION_FILENAME)
-                final File[] dataFiles = dataPath.listFiles(new JSONCollectionFilenameFilter(collectionName));
+        if (collectionsDataFiles.isEmpty()) return;
 
-                if( dataFiles == null || dataFiles.length == 0 ) continue;
+        for (String collectionName : collectionsDataFiles.keySet()) {
+            final SODACollectionMetadata metadata = collectionsMetadata.get(collectionName);
+            if (metadata != null && metadata.getKeyAssignment() == SODACollectionMetadata.KeyAssignment.CLIENT) {
+                section.printlnKO();
+                throw new ConfigurationClientKeyAssignmentException(collectionName);
+            }
+        }
 
-                Map<String, String> metadata = null;
+        if (loadValidate) {
+            validateDataFiles(collectionsDataFiles);
+        }
 
-                // upload them in parallel to OCI Object Storage
-                int nb = 1;
-                for (File file : dataFiles) {
-                    section.print(String.format("collection %s: uploading file %d/%d", collectionName, nb, dataFiles.length));
+        final UploadTuner uploadTuner = getUploadTuner();
 
-                    PutObjectRequest request =
-                            PutObjectRequest.builder()
-                                    .bucketName("dragon")
-                                    .namespaceName(namespaceName)
-                                    .objectName(dbName + "/" + collectionName + "/" + file.getName())
-                                    .contentType("application/json")
-                                    //.contentLanguage(contentLanguage)
-                                    //.contentEncoding("UTF-8")
-                                    //.opcMeta(metadata)
-                                    .build();
+        // budgets shared by all the collections: threads uploading file parts (the upload tuner ones) and database
+        // sessions running the loads
+        final ExecutorService splitExecutor = Executors.newFixedThreadPool(Math.max(1, loadSplitParallelism), daemonThreads("dragon-upload-part"));
+        final int uploaders = Math.max(1, Math.min(loadParallelCollections, collectionsDataFiles.size()));
+        final int loaders = Math.max(1, Math.min(loadMaxConcurrentCopies, collectionsDataFiles.size()));
+        final ExecutorService uploadStage = Executors.newFixedThreadPool(uploaders, daemonThreads("dragon-upload-stage"));
+        final ExecutorService loadStage = Executors.newFixedThreadPool(loaders, daemonThreads("dragon-load-stage"));
 
-                    UploadManager.UploadRequest uploadDetails = UploadManager.UploadRequest.builder(file).allowOverwrite(true).build(request);
-                    UploadManager.UploadResponse response = uploadManager.upload(uploadDetails);
+        // collections uploaded and waiting for a database session, then one empty element per loader marking the end
+        final BlockingQueue<Optional<String>> uploaded = new ArrayBlockingQueue<>(loaders);
+        final AtomicInteger remainingUploads = new AtomicInteger(collectionsDataFiles.size());
 
+        // both stages report to the same queue so that the first failure is seen whichever stage it comes from
+        final BlockingQueue<Future<Void>> completed = new LinkedBlockingQueue<>();
+        final CompletionService<Void> uploads = new ExecutorCompletionService<>(uploadStage, completed);
+        final CompletionService<Void> loads = new ExecutorCompletionService<>(loadStage, completed);
 
-                    //System.out.println("https://objectstorage."+getRegionForURL()+".oraclecloud.com/n/"+namespaceName+"/b/"+"dragon"+"/o/"+(dbName+"/"+collectionName+"/"+file.getName()).replaceAll("/", "%2F"));
+        collectionsToLoad = collectionsDataFiles.size();
+        collectionsLoaded = 0;
 
+        try {
+            for (Map.Entry<String, List<File>> collection : collectionsDataFiles.entrySet()) {
+                uploads.submit(() -> {
+                    if (collectionsLoadEngine.get(collection.getKey()) != LoadEngine.REST) {
+                        uploadCollection(collection.getKey(), collection.getValue(), namespaceName, uploadTuner, splitExecutor, manifest);
+                        printLoadProgress(collection.getKey(), "waiting for a database session");
+                    }
 
-                    //System.out.println(response);
-                    nb++;
-                }
+                    uploaded.put(Optional.of(collection.getKey()));
 
-                section.print(String.format("collection %s: loading...", collectionName));
+                    if (remainingUploads.decrementAndGet() == 0) {
+                        for (int i = 0; i < loaders; i++) {
+                            uploaded.put(Optional.empty());
+                        }
+                    }
+                    return null;
+                });
+            }
 
-                // if (databaseType == DatabaseType.AlwaysFreeATP) {
+            for (int i = 0; i < loaders; i++) {
+                loads.submit(() -> {
+                    Optional<String> next;
+                    while ((next = uploaded.take()).isPresent()) {
+                        final String collectionName = next.get();
+                        final boolean loaded;
+                        if (collectionsLoadEngine.get(collectionName) == LoadEngine.REST) {
+                            loadCollectionUsingREST(collectionName, collectionsDataFiles.get(collectionName), rSQLS, manifest);
+                            loaded = true;
+                        } else {
+                            loaded = copyCollection(collectionName, collectionsDataFiles.get(collectionName), namespaceName, rSQLS, manifest);
+                        }
+
+                        if (loaded) {
+                            try {
+                                manifest.loaded(collectionName, collectionsDataFiles.get(collectionName));
+                            } catch (IOException e) {
+                                throw new LoadManifestException(LOAD_MANIFEST_FILENAME, e);
+                            }
+                        }
+
+                        synchronized (this) {
+                            collectionsLoaded++;
+                        }
+                        printLoadProgress(collectionName, loaded ? "loaded" : "load running (use -attach to wait for it)");
+                    }
+                    return null;
+                });
+            }
+
+            for (int i = 0; i < collectionsDataFiles.size() + loaders; i++) {
                 try {
-                    rSQLS.execute(String.format(
-                            "BEGIN\n" +
-                                    "    DBMS_CLOUD.COPY_COLLECTION(\n" +
-                                    "        collection_name => '%s',\n" +
-                                    "        credential_name => 'DRAGON_CREDENTIAL_NAME',\n" +
-                                    "        file_uri_list => 'https://objectstorage.%s.oraclecloud.com/n/%s/b/dragon/o/%s/%s/*',\n" +
-                                    "        format => JSON_OBJECT('recorddelimiter' value '''\\n''', 'ignoreblanklines' value 'true') );\n" +
-                                    "END;\n" +
-                                    "/", collectionName, getRegionForURL(), namespaceName, dbName, collectionName));
-                } catch (RuntimeException re) {
+                    completed.take().get();
+                } catch (ExecutionException e) {
                     section.printlnKO();
-                    throw new CollectionNotLoadedException(collectionName, re);
+                    if (e.getCause() instanceof DSException) {
+                        throw (DSException) e.getCause();
+                    }
+                    throw new CollectionNotLoadedException(String.join(",", collectionsDataFiles.keySet()), e.getCause());
                 }
-                /*} else {
-                    // use DBMS_SCHEDULER with class HIGH...
-                    try {
-                        // TODO: Check for progress of load... using view USER_LOAD_OPERATIONS
-                        rSQLS.execute(String.format(
-                                "BEGIN\n" +
-                                        "    DBMS_SCHEDULER.CREATE_JOB (\n" +
-                                        "     job_name => 'LOAD_%s',\n" +
-                                        "     job_type => 'PLSQL_BLOCK',\n" +
-                                        "     job_action => 'BEGIN DBMS_CLOUD.COPY_COLLECTION(collection_name => ''%s'', credential_name => ''DRAGON_CREDENTIAL_NAME'', file_uri_list => ''https://objectstorage.%s.oraclecloud.com/n/%s/b/dragon/o/%s/%s/*'', format => JSON_OBJECT(''recorddelimiter'' value ''''''\\n'''''', ''ignoreblanklines'' value ''true'')); END;',\n" +
-                                        "     start_date => SYSTIMESTAMP,\n" +
-                                        "     enabled => TRUE,\n" +
-                                        "     auto_drop => FALSE,\n" +
-                                        "     job_class => 'HIGH',\n" +
-                                        "     comments => 'load %s collection');\n" +
-                                        "    COMMIT;\n" +
-                                        "END;\n" +
-                                        "/\n", collectionName, collectionName, getRegionForURL(), namespaceName, dbName, collectionName, collectionName));
-
-                        // TODO: Check for progress of load... using view USER_LOAD_OPERATIONS
-                    } catch (RuntimeException re) {
-                        section.printlnKO();
-                        throw new CollectionNotLoadedException(collectionName, re);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            section.printlnKO();
+            throw new CollectionNotLoadedException(String.join(",", collectionsDataFiles.keySet()), e);
+        } finally {
+            uploadStage.shutdownNow();
+            loadStage.shutdownNow();
+            splitExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks all the data files to load before anything is uploaded.
+     */
+    private void validateDataFiles(Map<String, List<File>> collectionsDataFiles) throws InvalidDataFileException {
+        final List<File> dataFiles = new ArrayList<>();
+        for (List<File> files : collectionsDataFiles.values()) {
+            dataFiles.addAll(files);
+        }
+
+        section.print(String.format("validating %d data file(s)", dataFiles.size()));
+        try {
+            final long documents = NDJSONValidator.validate(dataFiles, Runtime.getRuntime().availableProcessors());
+            section.print(String.format("%d documents validated", documents));
+        } catch (IOException e) {
+            section.printlnKO();
+            throw new InvalidDataFileException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the upload settings and threads shared by all the uploads of this process
+     */
+    private synchronized UploadTuner getUploadTuner() {
+        if (uploadTuner == null) {
+            uploadTuner = new UploadTuner(objectStorageClient, loadMaxUploadThreads, loadUploadPartSizeMB, loadUploadTuning);
+        }
+        return uploadTuner;
+    }
+
+    /**
+     * Uploads the data files of a collection to OCI Object Storage, except the ones uploaded by a previous run. Files
+     * larger than the split size are uploaded as parts in parallel.
+     */
+    private void uploadCollection(String collectionName, List<File> dataFiles, String namespaceName, UploadTuner uploadTuner,
+                                  ExecutorService splitExecutor, LoadManifestTracker manifest) throws CollectionNotLoadedException, InterruptedException {
+        // upload them in parallel to OCI Object Storage
+        int nb = 1;
+        for (File file : dataFiles) {
+            final List<NDJSONFileSplitter.Part> parts;
+            final List<String> objectNames;
+            try {
+                parts = NDJSONFileSplitter.split(file, loadSplitSize);
+                objectNames = getObjectNames(collectionName, file, parts);
+
+                if (manifest.isUploaded(collectionName, file, objectNames)) {
+                    nb++;
+                    continue;
+                }
+            } catch (IOException e) {
+                throw new CollectionNotLoadedException(collectionName, e);
+            }
+
+            if (parts.size() <= 1) {
+                printLoadProgress(collectionName, String.format("uploading file %d/%d", nb, dataFiles.size()));
+                try {
+                    uploadObject(namespaceName, objectNames.get(0), file, null, uploadTuner);
+                } catch (RuntimeException | IOException e) {
+                    throw new CollectionNotLoadedException(collectionName, e);
+                }
+            } else {
+                printLoadProgress(collectionName, String.format("uploading file %d/%d (%d parts)", nb, dataFiles.size(), parts.size()));
+
+                final List<Future<Void>> partUploads = new ArrayList<>();
+                for (int i = 0; i < parts.size(); i++) {
+                    final String objectName = objectNames.get(i);
+                    final NDJSONFileSplitter.Part part = parts.get(i);
+                    partUploads.add(splitExecutor.submit(() -> {
+                        uploadObject(namespaceName, objectName, file, part, uploadTuner);
+                        return null;
+                    }));
+                }
+
+                try {
+                    for (Future<Void> partUpload : partUploads) {
+                        partUpload.get();
+                    }
+                } catch (ExecutionException e) {
+                    throw new CollectionNotLoadedException(collectionName, e.getCause());
+                } finally {
+                    for (Future<Void> partUpload : partUploads) {
+                        partUpload.cancel(true);
                     }
-                }*/
+                }
             }
+
+            try {
+                manifest.uploaded(collectionName, file, objectNames);
+            } catch (IOException e) {
+                throw new CollectionNotLoadedException(collectionName, e);
+            }
+
+            nb++;
         }
     }
 
+    /**
+     * Uploads a data file, or a part of it, compressing it first if asked to. The upload settings are chosen by the
+     * upload tuner according to the number of bytes to send.
+     */
+    private void uploadObject(String namespaceName, String objectName, File file, NDJSONFileSplitter.Part part,
+                              UploadTuner uploadTuner) throws IOException {
+        PutObjectRequest request =
+                PutObjectRequest.builder()
+                        .bucketName("dragon")
+                        .namespaceName(namespaceName)
+                        .objectName(objectName)
+                        .contentType(loadGzip ? "application/gzip" : "application/json")
+                        //.contentLanguage(contentLanguage)
+                        //.contentEncoding("UTF-8")
+                        //.opcMeta(metadata)
+                        .build();
+
+        File compressed = null;
+        try (InputStream in = part == null ? null : NDJSONFileSplitter.open(file, part)) {
+            if (loadGzip) {
+                compressed = in == null ? JSONFileCompressor.gzip(file, loadMinify) : JSONFileCompressor.gzip(in, file.getName(), loadMinify);
+            }
+
+            final UploadManager.UploadRequest uploadDetails = (compressed != null ? UploadManager.UploadRequest.builder(compressed) :
+                    in != null ? UploadManager.UploadRequest.builder(in, part.getLength()) : UploadManager.UploadRequest.builder(file))
+                    .allowOverwrite(true).parallelUploadExecutorService(uploadTuner.getExecutor())
+                    .progressReporter(uploadTuner.newProgressReporter()).build(request);
+            final long length = compressed != null ? compressed.length() : in != null ? part.getLength() : file.length();
+            uploadTuner.getUploadManager(length).upload(uploadDetails);
+        } finally {
+            if (compressed != null) {
+                compressed.delete();
+            }
+        }
+    }
+
+    /**
+     * @return the object name with each path segment percent-encoded, as expected in an Object Storage URI
+     */
+    private static String encodeObjectName(String objectName) {
+        final StringBuilder encoded = new StringBuilder();
+        for (String segment : objectName.split("/", -1)) {
+            if (encoded.length() > 0) encoded.append('/');
+            encoded.append(URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20"));
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * @return the names of the Object Storage objects holding the given data file (compressed or not), one per part
+     */
+    private List<String> getObjectNames(String collectionName, File file, List<NDJSONFileSplitter.Part> parts) {
+        final String objectName = dbName + "/" + collectionName + "/" + JSONCollectionFilenameFilter.getDataFileName(dataPath, file);
+        final String suffix = loadGzip ? ".gz" : "";
+
+        if (parts.size() <= 1) {
+            return Collections.singletonList(objectName + suffix);
+        }
+
+        final List<String> objectNames = new ArrayList<>();
+        for (int i = 1; i <= parts.size(); i++) {
+            objectNames.add(String.format("%s.part%03d%s", objectName, i, suffix));
+        }
+        return objectNames;
+    }
+
+    /**
+     * Copies the given data files of a collection uploaded to OCI Object Storage into the collection, either during a
+     * REST request or inside a scheduler job.
+     *
+     * @return false if the load runs in a scheduler job this process detached from
+     */
+    private boolean copyCollection(String collectionName, List<File> dataFiles, String namespaceName, ADBRESTService rSQLS,
+                                   LoadManifestTracker manifest) throws CollectionNotLoadedException, InterruptedException {
+        printLoadProgress(collectionName, "loading...");
+
+        // explicit list so that files loaded by a previous run are not loaded twice, the parts of a split file being
+        // loaded in parallel by the database
+        final StringBuilder fileURIList = new StringBuilder();
+        try {
+            for (File file : dataFiles) {
+                // the objects recorded by the upload, the file being split (and named) the same way
+                final List<String> objectNames = manifest.getObjectNames(collectionName, file);
+                if (objectNames == null) {
+                    throw new IOException(file.getPath() + " was not uploaded");
+                }
+                for (String objectName : objectNames) {
+                    if (fileURIList.length() > 0) fileURIList.append(',');
+                    fileURIList.append(String.format("https://objectstorage.%s.oraclecloud.com/n/%s/b/dragon/o/%s",
+                            getRegionForURL(), namespaceName, encodeObjectName(objectName)));
+                }
+            }
+        } catch (IOException e) {
+            throw new CollectionNotLoadedException(collectionName, e);
+        }
+
+        // the list can be longer than a PL/SQL literal: it is read from a CLOB variable
+        final String copyStatement = String.format(
+                "    DBMS_CLOUD.COPY_COLLECTION(\n" +
+                "        collection_name => '%s',\n" +
+                "        credential_name => 'DRAGON_CREDENTIAL_NAME',\n" +
+                "        file_uri_list => file_uri_list,\n" +
+                "        format => JSON_OBJECT('recorddelimiter' value '''\\n''', 'ignoreblanklines' value 'true'%s) );",
+                collectionName, loadGzip ? ", 'compression' value 'gzip'" : "");
+
+        if (collectionsLoadEngine.get(collectionName) != LoadEngine.SCHEDULER) {
+            try {
+                rSQLS.execute(ServiceLevel.plsqlBlock(serviceLevelLoad,
+                                "    DECLARE\n" +
+                                "        file_uri_list CLOB := :file_uri_list;\n" +
+                                "    BEGIN\n" +
+                                copyStatement + "\n" +
+                                "    END;"),
+                        new ORDSSQLServiceBind("file_uri_list", ORDSSQLServiceBind.CLOB, fileURIList.toString()));
+            } catch (RuntimeException re) {
+                throw new CollectionNotLoadedException(collectionName, re);
+            }
+            return true;
+        }
+
+        // the job class runs the load on the service of the load, a job action having no bind variables: the list is
+        // staged in a table
+        final SchedulerLoadJob job = new SchedulerLoadJob(rSQLS, collectionName);
+        try {
+            rSQLS.execute(STAGE_FILE_URI_LIST_STATEMENT,
+                    new ORDSSQLServiceBind("collection_name", ORDSSQLServiceBind.VARCHAR2, collectionName),
+                    new ORDSSQLServiceBind("file_uri_list", ORDSSQLServiceBind.CLOB, fileURIList.toString()));
+
+            job.submit("    DECLARE\n" +
+                    "        file_uri_list CLOB;\n" +
+                    "    BEGIN\n" +
+                    "        SELECT f.file_uri_list INTO file_uri_list FROM dragon_load_files f WHERE f.collection_name = '" + collectionName.replace("'", "''") + "';\n" +
+                    copyStatement + "\n" +
+                    "    END;", serviceLevelLoad);
+
+            // what precedes the load, for another process to attach to it
+            manifest.jobSubmitted(collectionName, new LoadManifestJob(job.getLastLogId(), job.getLastLoadId()));
+        } catch (RuntimeException | IOException e) {
+            throw new CollectionNotLoadedException(collectionName, e);
+        }
+
+        if (detach) {
+            printLoadProgress(collectionName, "running as job " + job.getJobName());
+            return false;
+        }
+
+        waitForLoadJob(collectionName, job);
+        return true;
+    }
+
+    /**
+     * Polls a scheduler load job until it ends, reporting the rows loaded.
+     */
+    private void waitForLoadJob(String collectionName, SchedulerLoadJob job) throws CollectionNotLoadedException, InterruptedException {
+        try {
+            while (job.poll() == SchedulerLoadJob.State.RUNNING) {
+                printLoadProgress(collectionName, String.format("%d rows loaded (%.0f rows/s)", job.getRowsLoaded(), job.getRowsPerSecond()));
+                Thread.sleep(LOAD_JOB_POLL_INTERVAL_MS);
+            }
+        } catch (RuntimeException re) {
+            throw new CollectionNotLoadedException(collectionName, re);
+        }
+
+        if (job.getState() == SchedulerLoadJob.State.FAILED) {
+            throw new CollectionNotLoadedException(collectionName, new IllegalStateException("job " + job.getJobName() + " failed: " + job.getErrors()));
+        }
+
+        printLoadProgress(collectionName, String.format("%d rows loaded", job.getRowsLoaded()));
+    }
+
+    /**
+     * Waits for the scheduler load jobs started by a previous run (detached with -detach) to end.
+     */
+    private void attachLoads(ADBRESTService rSQLS) throws DSException {
+        section = Section.LoadDataIntoCollections;
+        section.print("looking for running loads");
+
+        final LoadManifestTracker manifest;
+        try {
+            manifest = LoadManifestTracker.open(new File(LOAD_MANIFEST_FILENAME), dbName, dataPath);
+        } catch (IOException e) {
+            section.printlnKO();
+            throw new LoadManifestException(LOAD_MANIFEST_FILENAME, e);
+        }
+
+        final List<SchedulerLoadJob> jobs = new ArrayList<>();
+        for (String collectionName : configFile.get(CONFIG_COLLECTIONS).split(",")) {
+            // only the loads submitted from here are known, with the job runs and load operations preceding them
+            final LoadManifestJob submitted = manifest.getJob(collectionName);
+            if (!"dragon".equals(collectionName) && collectionsLoadEngine.get(collectionName) == LoadEngine.SCHEDULER && submitted != null) {
+                final SchedulerLoadJob job = new SchedulerLoadJob(rSQLS, collectionName);
+                job.attach(submitted.getLogId(), submitted.getLoadId());
+                jobs.add(job);
+            }
+        }
+
+        collectionsToLoad = jobs.size();
+        collectionsLoaded = 0;
+
+        // jobs run concurrently inside the database, waiting for them one by one lasts as long as the longest one
+        for (SchedulerLoadJob job : jobs) {
+            final String collectionName = job.getCollectionName();
+            try {
+                waitForLoadJob(collectionName, job);
+                manifest.uploadedFilesLoaded(collectionName);
+            } catch (CollectionNotLoadedException e) {
+                section.printlnKO();
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                section.printlnKO();
+                throw new CollectionNotLoadedException(collectionName, e);
+            } catch (IOException e) {
+                section.printlnKO();
+                throw new LoadManifestException(LOAD_MANIFEST_FILENAME, e);
+            }
+
+            synchronized (this) {
+                collectionsLoaded++;
+            }
+            printLoadProgress(collectionName, "loaded");
+        }
+
+        section.printlnOK(jobs.isEmpty() ? "no load found" : String.format("%d collection(s)", jobs.size()));
+    }
+
+    /**
+     * Streams the data files of a collection to SODA bulk inserts, without staging them into Object Storage. Each
+     * inserted batch is recorded in the load manifest: after a failure or an interruption, a new load only sends the
+     * lines not inserted yet.
+     */
+    private void loadCollectionUsingREST(String collectionName, List<File> dataFiles, ADBRESTService rSQLS, LoadManifestTracker manifest) throws CollectionNotLoadedException {
+        final long startTime = System.currentTimeMillis();
+        // lines inserted by a previous load of these files are not sent again
+        final RESTCollectionLoader loader = new RESTCollectionLoader(rSQLS, collectionName)
+                .trackInsertedLines(manifest.getInsertedLines(collectionName))
+                .onProgress(loaded -> printLoadProgress(collectionName, String.format("%d documents loaded", loaded)));
+
+        try {
+            loader.load(dataFiles);
+        } catch (IOException e) {
+            throw new CollectionNotLoadedException(collectionName, e);
+        }
+
+        if (loader.getFailedDocuments() > 0) {
+            throw new CollectionNotLoadedException(collectionName, new IllegalStateException(
+                    String.format("%d document(s) not inserted: %s", loader.getFailedDocuments(), String.join(", ", loader.getErrors()))));
+        }
+
+        printLoadProgress(collectionName, String.format("%d documents loaded (%.0f documents/s)%s",
+                loader.getLoadedDocuments(), loader.getLoadedDocuments() * 1000.0 / Math.max(1, System.currentTimeMillis() - startTime),
+                loader.getSkippedDocuments() > 0 ? String.format(", %d inserted by a previous load", loader.getSkippedDocuments()) : ""));
+    }
+
+    /**
+     * Prints the progress of one collection load, prefixed by the number of collections already loaded.
+     */
+    private synchronized void printLoadProgress(String collectionName, String msg) {
+        section.print(String.format("[%d/%d] collection %s: %s", collectionsLoaded, collectionsToLoad, collectionName, msg));
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return r -> {
+            final Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
     private void destroyDatabase() throws OCIDatabaseTerminationFailedException, OCIDatabaseWaitForTerminationFailedException {
         section = Section.DatabaseTermination;
         section.print("checking existing databases");
@@ -1113,6 +2060,11 @@ public class DSSession {
         if (toDelete.exists()) {
             toDelete.delete();
         }
+
+        final File manifestToDelete = new File(LOAD_MANIFEST_FILENAME);
+        if (manifestToDelete.exists()) {
+            manifestToDelete.delete();
+        }
     }
 
     private void sleep(final long milliseconds) {
@@ -1127,6 +2079,9 @@ public class DSSession {
         if (workRequestClient != null) workRequestClient.close();
         if (objectStorageClient != null) objectStorageClient.close();
         if (identityClient != null) identityClient.close();
+        if (uploadTuner != null) uploadTuner.close();
+        for (ADBRESTService restService : restServices.values()) restService.close();
+        restServices.clear();
     }
 
     public void displayInformation() {
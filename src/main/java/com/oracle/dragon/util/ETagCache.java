@@ -0,0 +1,69 @@
+package com.oracle.dragon.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded least recently used cache of GET response bodies keyed by URL, each one kept with its ETag so that it can be
+ * revalidated using <code>If-None-Match</code>.
+ */
+class ETagCache {
+    static class CachedResponse {
+        final String etag;
+        final String body;
+
+        CachedResponse(String etag, String body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+
+    private final Map<String, CachedResponse> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ETagCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized CachedResponse get(final String url) {
+        return entries.get(url);
+    }
+
+    synchronized void put(final String url, final CachedResponse entry) {
+        entries.put(url, entry);
+    }
+
+    synchronized void remove(final String url) {
+        entries.remove(url);
+    }
+
+    /**
+     * Records a response served from the cache (304 Not Modified).
+     */
+    void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Records a response which payload was transferred.
+     */
+    void miss() {
+        misses.increment();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+}
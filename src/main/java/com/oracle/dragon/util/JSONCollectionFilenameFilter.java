@@ -2,17 +2,114 @@ package com.oracle.dragon.util;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+/**
+ * Matches the data files of a set of collections (<code>&lt;collection name&gt;[_NNN].json</code>, case insensitive)
+ * with a single regular expression naming the collection each file belongs to.
+ */
 public class JSONCollectionFilenameFilter implements FilenameFilter {
     private final Pattern pattern;
 
-    public JSONCollectionFilenameFilter(String collectionName) {
-        pattern = Pattern.compile(collectionName + "(_\\d+)?\\.json", Pattern.CASE_INSENSITIVE);
+    /**
+     * Configured collection names by lower case name, the match being case insensitive.
+     */
+    private final Map<String, String> collectionNames = new HashMap<>();
+
+    public JSONCollectionFilenameFilter(Collection<String> collectionNames) {
+        for (String collectionName : collectionNames) {
+            this.collectionNames.putIfAbsent(collectionName.toLowerCase(), collectionName);
+        }
+
+        // longest names first so that a file such as users_1.json belongs to the collection users_1 if it exists
+        pattern = Pattern.compile("(?<collection>" + collectionNames.stream()
+                        .sorted(Comparator.comparingInt(String::length).reversed())
+                        .map(Pattern::quote)
+                        .collect(Collectors.joining("|")) + ")(_\\d+)?\\.json",
+                Pattern.CASE_INSENSITIVE);
     }
 
     @Override
     public boolean accept(File dir, String name) {
         return pattern.matcher(name).matches();
     }
+
+    /**
+     * @return the collection the data file belongs to, null if it isn't a data file of these collections
+     */
+    public String getCollectionName(String fileName) {
+        final Matcher matcher = pattern.matcher(fileName);
+        return matcher.matches() ? collectionNames.get(matcher.group("collection").toLowerCase()) : null;
+    }
+
+    /**
+     * Finds the data files of all the collections in one pass over the data folder.
+     *
+     * @param dataPath  the data folder
+     * @param recursive whether to look into the sub-folders too
+     * @return the data files of each collection having some, the collections holding the most bytes and the largest
+     * files coming first so that the longest uploads start early
+     * @throws IOException if the data folder can't be read
+     */
+    public Map<String, List<File>> scan(File dataPath, boolean recursive) throws IOException {
+        final Map<String, List<File>> dataFiles = new HashMap<>();
+        final Map<File, Long> sizes = new HashMap<>();
+        final Path root = dataPath.toPath();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return recursive || dir.equals(root) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    final String collectionName = getCollectionName(file.getFileName().toString());
+                    if (collectionName != null) {
+                        final File dataFile = file.toFile();
+                        dataFiles.computeIfAbsent(collectionName, k -> new ArrayList<>()).add(dataFile);
+                        sizes.put(dataFile, attrs.size());
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        final Comparator<File> largestFirst = Comparator.<File>comparingLong(sizes::get).reversed().thenComparing(File::getPath);
+        final Map<String, Long> collectionSizes = new HashMap<>();
+        for (Map.Entry<String, List<File>> collection : dataFiles.entrySet()) {
+            collection.getValue().sort(largestFirst);
+            collectionSizes.put(collection.getKey(), collection.getValue().stream().mapToLong(sizes::get).sum());
+        }
+
+        final Map<String, List<File>> plan = new LinkedHashMap<>();
+        dataFiles.keySet().stream()
+                .sorted(Comparator.<String>comparingLong(collectionSizes::get).reversed().thenComparing(Comparator.naturalOrder()))
+                .forEach(collectionName -> plan.put(collectionName, dataFiles.get(collectionName)));
+        return plan;
+    }
+
+    /**
+     * @return the path of the data file relative to the data folder, with / separators (the file name for a file of
+     * the data folder itself)
+     */
+    public static String getDataFileName(File dataPath, File file) {
+        return dataPath.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    }
 }
@@ -0,0 +1,116 @@
+package com.oracle.dragon.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses JSON data files (one document per line) with gzip before their upload to OCI Object Storage, optionally
+ * removing the whitespaces outside strings on the fly.
+ * <p>
+ * The result is written to a temporary file because the upload needs the length of its content up front.
+ */
+public class JSONFileCompressor {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private JSONFileCompressor() {
+    }
+
+    /**
+     * @param source the JSON data file
+     * @param minify whether to remove the whitespaces outside strings (line feeds separating documents are kept)
+     * @return a temporary gzip file, to delete once uploaded
+     * @throws IOException if the file can't be read or the temporary file can't be written
+     */
+    public static File gzip(final File source, final boolean minify) throws IOException {
+        try (InputStream in = new FileInputStream(source)) {
+            return gzip(in, source.getName(), minify);
+        }
+    }
+
+    /**
+     * @param source a stream of JSON documents, one per line (a part of a data file)
+     * @param name   the name of the data file
+     * @param minify whether to remove the whitespaces outside strings (line feeds separating documents are kept)
+     * @return a temporary gzip file, to delete once uploaded
+     * @throws IOException if the stream can't be read or the temporary file can't be written
+     */
+    public static File gzip(final InputStream source, final String name, final boolean minify) throws IOException {
+        final File target = File.createTempFile("dragon-" + name + "-", ".gz");
+        target.deleteOnExit();
+
+        try (OutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(target), BUFFER_SIZE), BUFFER_SIZE);
+             OutputStream out = minify ? new MinifyingOutputStream(gzip) : gzip) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = source.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            target.delete();
+            throw e;
+        }
+
+        return target;
+    }
+
+    /**
+     * Drops spaces, tabs and carriage returns outside JSON strings. UTF-8 multi-byte sequences never contain ASCII
+     * bytes, so the input can be processed byte by byte.
+     */
+    private static class MinifyingOutputStream extends FilterOutputStream {
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private boolean inString;
+        private boolean escaped;
+
+        MinifyingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int length = 0;
+
+            for (int i = off; i < off + len; i++) {
+                final byte c = b[i];
+
+                if (c == '\n') {
+                    // documents can't span lines
+                    inString = false;
+                    escaped = false;
+                } else if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == ' ' || c == '\t' || c == '\r') {
+                    continue;
+                }
+
+                buffer[length++] = c;
+                if (length == buffer.length) {
+                    out.write(buffer, 0, length);
+                    length = 0;
+                }
+            }
+
+            out.write(buffer, 0, length);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the JSON items returned page by page by a REST service.
+ * <p>
+ * Each page is parsed incrementally from the HTTPS response stream: only the current item is materialized, so memory
+ * usage doesn't depend on the page size nor on the total number of items. The next page is requested once the current
+ * one has been consumed and the service reported that more items were available.
+ * <p>
+ * Close the iterator when stopping before the end so that the underlying response stream is released.
+ */
+public abstract class JSONPageIterator implements Iterator<JsonNode>, AutoCloseable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    protected final int pageSize;
+
+    private InputStream stream;
+    private JsonParser parser;
+    private JsonNode next;
+
+    /**
+     * Number of items read so far (offset of the next page).
+     */
+    private long offset;
+
+    /**
+     * Number of items read from the current page.
+     */
+    private int itemsInPage;
+
+    private boolean morePages = true;
+    private boolean hasMore;
+
+    protected JSONPageIterator(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Sends the request of the page starting at the given offset.
+     *
+     * @param offset   the number of items already read
+     * @param pageSize the maximum number of items of the page
+     * @return the (decompressed) response body stream
+     * @throws Exception if the page could not be retrieved
+     */
+    protected abstract InputStream openPage(long offset, int pageSize) throws Exception;
+
+    /**
+     * Moves the parser to the beginning of the items array of the page.
+     *
+     * @param parser the parser of the page, positioned before the first token
+     * @return true if the parser is now positioned on the items array start, false if the page contains no items
+     * @throws IOException in case of parsing error
+     */
+    protected abstract boolean seekItems(JsonParser parser) throws IOException;
+
+    /**
+     * Reads the page properties following the items array, typically to find out if more items are available.
+     *
+     * @param parser the parser of the page, positioned on the items array end
+     * @throws IOException in case of parsing error
+     */
+    protected abstract void readTrailer(JsonParser parser) throws IOException;
+
+    /**
+     * Converts an item of the page into the value returned by the iterator.
+     *
+     * @param item the item as found in the page
+     * @return the value returned by {@link #next()}
+     */
+    protected JsonNode map(JsonNode item) {
+        return item;
+    }
+
+    /**
+     * Records whether the service has more items after the current page.
+     *
+     * @param hasMore true if another page should be requested
+     */
+    protected void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) return true;
+
+        try {
+            while (true) {
+                if (parser == null) {
+                    if (!morePages) return false;
+
+                    hasMore = false;
+                    itemsInPage = 0;
+                    try {
+                        stream = openPage(offset, pageSize);
+                    } catch (RuntimeException | IOException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    parser = MAPPER.getFactory().createParser(stream);
+
+                    if (!seekItems(parser)) {
+                        morePages = false;
+                        closePage();
+                        return false;
+                    }
+                }
+
+                final JsonToken token = parser.nextToken();
+                if (token != null && token != JsonToken.END_ARRAY) {
+                    next = map(parser.readValueAsTree());
+                    offset++;
+                    itemsInPage++;
+                    return true;
+                }
+
+                readTrailer(parser);
+                while (parser.nextToken() != null) {
+                    // read the remaining (small) end of the response so that the connection can be reused
+                }
+                morePages = hasMore && itemsInPage > 0;
+                closePage();
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public JsonNode next() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        final JsonNode result = next;
+        next = null;
+        return result;
+    }
+
+    private void closePage() {
+        try {
+            if (parser != null) parser.close();
+            if (stream != null) stream.close();
+        } catch (IOException ignored) {
+        } finally {
+            parser = null;
+            stream = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        morePages = false;
+        next = null;
+        closePage();
+    }
+}
@@ -0,0 +1,20 @@
+package com.oracle.dragon.util;
+
+/**
+ * How the JSON data files of a collection are loaded.
+ */
+public enum LoadEngine {
+    /**
+     * Files are uploaded to Object Storage then loaded by DBMS_CLOUD.COPY_COLLECTION (best for large datasets).
+     */
+    OBJECT_STORAGE,
+    /**
+     * Like {@link #OBJECT_STORAGE} but COPY_COLLECTION runs inside a DBMS_SCHEDULER job, its progress being polled from
+     * USER_LOAD_OPERATIONS (no long running REST request, the job can be detached from).
+     */
+    SCHEDULER,
+    /**
+     * Files are streamed straight into SODA bulk inserts (no staging nor credential needed).
+     */
+    REST
+}
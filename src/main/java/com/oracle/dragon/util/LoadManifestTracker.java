@@ -0,0 +1,252 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oracle.dragon.model.LoadManifest;
+import com.oracle.dragon.model.LoadManifestFile;
+import com.oracle.dragon.model.LoadManifestJob;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps track of the data files already uploaded and loaded into collections, so that a new load skips them.
+ * <p>
+ * A file is considered unchanged if its size and last modification time are the same as recorded, or else if its
+ * checksum is the same. A changed file is uploaded and loaded again. The manifest is saved after each state change so
+ * that an interrupted load resumes where it stopped.
+ * <p>
+ * Files loaded using SODA bulk inserts (REST load engine) are also tracked line by line: the lines of each inserted
+ * batch are recorded at once, so that a new load only sends the lines not inserted yet instead of duplicating them.
+ */
+public class LoadManifestTracker {
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final File manifestFile;
+    private final LoadManifest manifest;
+    private final File dataPath;
+
+    private LoadManifestTracker(File manifestFile, LoadManifest manifest, File dataPath) {
+        this.manifestFile = manifestFile;
+        this.manifest = manifest;
+        this.dataPath = dataPath;
+    }
+
+    /**
+     * @param manifestFile the manifest to read, if it exists
+     * @param dbName       the database to load, the manifest of another database being discarded
+     * @param dataPath     the data folder, files being tracked by their path relative to it
+     * @return the tracker of the loads into this database
+     * @throws IOException if the manifest can't be read
+     */
+    public static LoadManifestTracker open(File manifestFile, String dbName, File dataPath) throws IOException {
+        LoadManifest manifest = manifestFile.isFile() ? MAPPER.readValue(manifestFile, LoadManifest.class) : null;
+
+        if (manifest == null || !dbName.equals(manifest.getDbName())) {
+            manifest = new LoadManifest();
+            manifest.setDbName(dbName);
+        }
+
+        return new LoadManifestTracker(manifestFile, manifest, dataPath);
+    }
+
+    /**
+     * @return the files not loaded yet into the collection (new, changed or interrupted)
+     * @throws IOException if a checksum can't be computed
+     */
+    public synchronized List<File> getFilesToLoad(String collectionName, List<File> dataFiles) throws IOException {
+        final List<File> toLoad = new ArrayList<>();
+        for (File file : dataFiles) {
+            if (!track(collectionName, file).isLoaded()) {
+                toLoad.add(file);
+            }
+        }
+        return toLoad;
+    }
+
+    /**
+     * @param objectNames the Object Storage objects expected to hold the file (their names depend on the compression
+     *                    and on the split of the file)
+     */
+    public synchronized boolean isUploaded(String collectionName, File file, List<String> objectNames) throws IOException {
+        final LoadManifestFile entry = track(collectionName, file);
+        return entry.isUploaded() && entry.getObjectNames() != null && objectNames.equals(Arrays.asList(entry.getObjectNames()));
+    }
+
+    /**
+     * @return the Object Storage objects holding the file, null if it isn't uploaded
+     */
+    public synchronized List<String> getObjectNames(String collectionName, File file) throws IOException {
+        final LoadManifestFile entry = track(collectionName, file);
+        return entry.isUploaded() && entry.getObjectNames() != null ? Arrays.asList(entry.getObjectNames()) : null;
+    }
+
+    public synchronized void uploaded(String collectionName, File file, List<String> objectNames) throws IOException {
+        final LoadManifestFile entry = track(collectionName, file);
+        entry.setUploaded(true);
+        entry.setObjectNames(objectNames.toArray(new String[0]));
+        save();
+    }
+
+    public synchronized void loaded(String collectionName, List<File> files) throws IOException {
+        for (File file : files) {
+            final LoadManifestFile entry = track(collectionName, file);
+            entry.setLoaded(true);
+            entry.setInsertedLines(null);
+        }
+        manifest.getJobs().remove(collectionName);
+        save();
+    }
+
+    /**
+     * @return the lines of the data files of the collection inserted by SODA bulk inserts, as known when first asked
+     * for each file, and where to record the lines newly inserted
+     */
+    public RESTCollectionLoader.InsertedLines getInsertedLines(String collectionName) {
+        return new RESTCollectionLoader.InsertedLines() {
+            private final Map<File, List<long[]>> previouslyInserted = new ConcurrentHashMap<>();
+
+            @Override
+            public boolean contains(File file, int lineNumber) {
+                for (long[] range : previouslyInserted.computeIfAbsent(file, f -> getInsertedLines(collectionName, f))) {
+                    if (lineNumber >= range[0] && lineNumber <= range[1]) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void add(File file, int firstLine, int lastLine) throws IOException {
+                inserted(collectionName, file, firstLine, lastLine);
+            }
+        };
+    }
+
+    private synchronized List<long[]> getInsertedLines(String collectionName, File file) {
+        try {
+            return parseLineRanges(track(collectionName, file).getInsertedLines());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records lines of the file inserted into the collection.
+     */
+    public synchronized void inserted(String collectionName, File file, int firstLine, int lastLine) throws IOException {
+        final LoadManifestFile entry = track(collectionName, file);
+        final List<long[]> ranges = parseLineRanges(entry.getInsertedLines());
+        ranges.add(new long[]{firstLine, lastLine});
+        ranges.sort(Comparator.comparingLong(r -> r[0]));
+
+        // adjacent or overlapping ranges are merged
+        final List<String> merged = new ArrayList<>();
+        long[] current = null;
+        for (long[] range : ranges) {
+            if (current != null && range[0] <= current[1] + 1) {
+                current[1] = Math.max(current[1], range[1]);
+            } else {
+                if (current != null) merged.add(current[0] + "-" + current[1]);
+                current = range;
+            }
+        }
+        merged.add(current[0] + "-" + current[1]);
+
+        entry.setInsertedLines(merged.toArray(new String[0]));
+        save();
+    }
+
+    private static List<long[]> parseLineRanges(String[] ranges) {
+        final List<long[]> result = new ArrayList<>();
+        if (ranges != null) {
+            for (String range : ranges) {
+                final int dash = range.indexOf('-');
+                result.add(new long[]{Long.parseLong(range.substring(0, dash)), Long.parseLong(range.substring(dash + 1))});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Marks the files of the collection uploaded by a previous run as loaded (by a load this process detached from).
+     */
+    public synchronized void uploadedFilesLoaded(String collectionName) throws IOException {
+        for (Map.Entry<String, LoadManifestFile> entry : manifest.getFiles().entrySet()) {
+            if (entry.getKey().startsWith(collectionName + "/") && entry.getValue().isUploaded()) {
+                entry.getValue().setLoaded(true);
+            }
+        }
+        manifest.getJobs().remove(collectionName);
+        save();
+    }
+
+    /**
+     * Records the scheduler job loading the collection, so that another process can attach to it.
+     */
+    public synchronized void jobSubmitted(String collectionName, LoadManifestJob job) throws IOException {
+        manifest.getJobs().put(collectionName, job);
+        save();
+    }
+
+    /**
+     * @return the scheduler job loading the collection, null if none was submitted or if it loaded the collection
+     */
+    public synchronized LoadManifestJob getJob(String collectionName) {
+        return manifest.getJobs().get(collectionName);
+    }
+
+    /**
+     * @return the recorded state of the file, reset if the file changed since
+     */
+    private LoadManifestFile track(String collectionName, File file) throws IOException {
+        final String key = collectionName + "/" + JSONCollectionFilenameFilter.getDataFileName(dataPath, file);
+        LoadManifestFile entry = manifest.getFiles().get(key);
+
+        if (entry != null && entry.getSize() == file.length() && entry.getLastModified() == file.lastModified()) {
+            return entry;
+        }
+
+        final String checksum = checksum(file);
+        if (entry == null || entry.getSize() != file.length() || !checksum.equals(entry.getChecksum())) {
+            entry = new LoadManifestFile();
+            entry.setSize(file.length());
+            entry.setChecksum(checksum);
+            manifest.getFiles().put(key, entry);
+        }
+
+        // only touched
+        entry.setLastModified(file.lastModified());
+        return entry;
+    }
+
+    private void save() throws IOException {
+        final File tmp = new File(manifestFile.getPath() + ".tmp");
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmp, manifest);
+        Files.move(tmp.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String checksum(File file) throws IOException {
+        final CRC32C crc = new CRC32C();
+        final byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return Long.toHexString(crc.getValue());
+    }
+}
@@ -0,0 +1,135 @@
+package com.oracle.dragon.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuts big JSON data files (one document per line) into parts ending on a line feed, so that they can be uploaded and
+ * loaded in parallel. Parts are read through memory mapping: nothing is copied on disk. Note that the OCI SDK reads
+ * a stream into memory one chunk at a time when uploading it (so that chunks can be sent again): an uncompressed part
+ * uploaded as a stream costs as much heap as its multipart chunks being uploaded at the same time.
+ */
+public class NDJSONFileSplitter {
+    /**
+     * Largest part, a memory mapping being limited to 2 GiB.
+     */
+    public static final long MAX_PART_SIZE = 1024L * 1024 * 1024;
+
+    /**
+     * Bytes mapped at once while looking for the end of a line.
+     */
+    private static final int SCAN_WINDOW = 64 * 1024;
+
+    public static class Part {
+        private final long offset;
+        private final long length;
+
+        Part(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLength() {
+            return length;
+        }
+    }
+
+    private NDJSONFileSplitter() {
+    }
+
+    /**
+     * @param file     the JSON data file
+     * @param partSize the size of the parts, each one being extended up to the end of its last line
+     * @return the parts of the file, only one if it isn't larger than the part size
+     * @throws IOException if the file can't be read
+     */
+    public static List<Part> split(final File file, final long partSize) throws IOException {
+        final long size = file.length();
+        final long step = Math.max(1, Math.min(partSize, MAX_PART_SIZE));
+        final List<Part> parts = new ArrayList<>();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long start = 0;
+            while (start < size) {
+                final long end = start + step >= size ? size : endOfLine(channel, start + step, size);
+                parts.add(new Part(start, end - start));
+                start = end;
+            }
+        }
+
+        return parts;
+    }
+
+    /**
+     * @return a stream reading the part from a read-only memory mapping of the file
+     * @throws IOException if the file can't be mapped
+     */
+    public static InputStream open(final File file, final Part part) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            // the mapping remains valid once the channel is closed
+            return new MappedInputStream(channel.map(FileChannel.MapMode.READ_ONLY, part.getOffset(), part.getLength()));
+        }
+    }
+
+    /**
+     * @return the position following the first line feed found from the given position, or the end of the file
+     */
+    private static long endOfLine(final FileChannel channel, long position, final long size) throws IOException {
+        while (position < size) {
+            final int length = (int) Math.min(SCAN_WINDOW, size - position);
+            final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += length;
+        }
+        return size;
+    }
+
+    private static class MappedInputStream extends InputStream {
+        private final MappedByteBuffer buffer;
+
+        MappedInputStream(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public long skip(long n) {
+            final int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks that JSON data files hold exactly one JSON object per line (blank lines being ignored) before uploading them.
+ * <p>
+ * Files are validated in parallel, each one being tokenized as a stream without materializing its values, the first
+ * invalid line stopping the validation.
+ */
+public class NDJSONValidator {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * A line which is not a JSON object.
+     */
+    public static class InvalidLineException extends IOException {
+        InvalidLineException(File file, long lineNumber, String message) {
+            super(String.format("%s:%d: %s", file.getPath(), lineNumber, message));
+        }
+    }
+
+    private NDJSONValidator() {
+    }
+
+    /**
+     * @param files       the JSON data files
+     * @param parallelism the number of files validated at the same time
+     * @return the number of JSON documents found
+     * @throws InvalidLineException if a line is not a JSON object
+     * @throws IOException          if a file can't be read
+     */
+    public static long validate(final List<File> files, final int parallelism) throws IOException {
+        if (files.isEmpty()) return 0;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, files.size())), r -> {
+            final Thread t = new Thread(r, "dragon-validation");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            final CompletionService<Long> validations = new ExecutorCompletionService<>(executor);
+            for (File file : files) {
+                validations.submit(() -> validate(file));
+            }
+
+            long documents = 0;
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    documents += validations.take().get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException(e.getCause());
+                }
+            }
+            return documents;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("validation interrupted");
+        } finally {
+            // fail fast: the other files are not validated further
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param file the JSON data file
+     * @return the number of JSON documents found
+     * @throws InvalidLineException if a line is not a JSON object
+     * @throws IOException          if the file can't be read
+     */
+    public static long validate(final File file) throws IOException {
+        long documents = 0;
+
+        // one parser for the whole file: the documents are a sequence of root values, each one having to start on a
+        // new line and to end on the line it started on
+        try (InputStream in = new FileInputStream(file); JsonParser parser = FACTORY.createParser(in)) {
+            long previousLine = 0;
+            JsonToken token;
+            while ((token = nextToken(file, parser)) != null) {
+                final long line = parser.getTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    throw new InvalidLineException(file, line, "a JSON object is expected");
+                }
+                if (line == previousLine) {
+                    throw new InvalidLineException(file, line, "only one JSON document per line is expected");
+                }
+
+                // tokens are checked without decoding the values
+                int depth = 1;
+                while (depth > 0) {
+                    token = nextToken(file, parser);
+                    if (token == null) {
+                        throw new InvalidLineException(file, parser.getCurrentLocation().getLineNr(), "unexpected end of file inside a JSON object");
+                    } else if (token.isStructStart()) {
+                        depth++;
+                    } else if (token.isStructEnd()) {
+                        depth--;
+                    }
+                }
+
+                if (parser.getTokenLocation().getLineNr() != line) {
+                    throw new InvalidLineException(file, line, "a JSON document must fit on one line");
+                }
+
+                previousLine = line;
+                if ((++documents & 0xffff) == 0 && Thread.interrupted()) {
+                    throw new InterruptedIOException("validation of " + file.getPath() + " interrupted");
+                }
+            }
+        }
+
+        return documents;
+    }
+
+    private static JsonToken nextToken(final File file, final JsonParser parser) throws IOException {
+        try {
+            return parser.nextToken();
+        } catch (JsonProcessingException e) {
+            throw new InvalidLineException(file, e.getLocation() == null ? 0 : e.getLocation().getLineNr(), e.getOriginalMessage());
+        }
+    }
+}
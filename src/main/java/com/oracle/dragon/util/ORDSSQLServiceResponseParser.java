@@ -0,0 +1,105 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.oracle.dragon.model.ORDSSQLServiceResponse;
+import com.oracle.dragon.model.ORDSSQLServiceResponseItems;
+import com.oracle.dragon.util.exception.ORDSSQLServiceUnparsableResponseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser of REST Enabled SQL Service responses.
+ * <p>
+ * Only the outcome of each statement is kept (<code>items[*].statementId/statementType/errorCode/errorLine/errorDetails/response</code>):
+ * result sets, statement texts and other properties are skipped token by token without being materialized.
+ */
+final class ORDSSQLServiceResponseParser {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private ORDSSQLServiceResponseParser() {
+    }
+
+    static ORDSSQLServiceResponse parse(final InputStream in) throws ORDSSQLServiceUnparsableResponseException {
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ORDSSQLServiceUnparsableResponseException("JSON object expected at " + parser.getCurrentLocation(), null);
+            }
+
+            final List<ORDSSQLServiceResponseItems> items = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("items".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        items.add(parseItem(parser));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            final ORDSSQLServiceResponse response = new ORDSSQLServiceResponse();
+            response.setItems(items.toArray(new ORDSSQLServiceResponseItems[0]));
+            return response;
+        } catch (IOException e) {
+            throw new ORDSSQLServiceUnparsableResponseException(e.getMessage(), e);
+        }
+    }
+
+    private static ORDSSQLServiceResponseItems parseItem(final JsonParser parser) throws IOException {
+        final ORDSSQLServiceResponseItems item = new ORDSSQLServiceResponseItems();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "statementId":
+                    item.setStatementId(parser.getValueAsInt());
+                    break;
+
+                case "statementType":
+                    item.setStatementType(parser.getValueAsString());
+                    break;
+
+                case "errorCode":
+                    item.setErrorCode(parser.getValueAsInt());
+                    break;
+
+                case "errorLine":
+                    item.setErrorLine(parser.getValueAsInt());
+                    break;
+
+                case "errorDetails":
+                    item.setErrorDetails(parser.getValueAsString());
+                    break;
+
+                case "response":
+                    if (parser.currentToken() == JsonToken.START_ARRAY) {
+                        final List<String> lines = new ArrayList<>();
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (parser.currentToken().isStructStart()) {
+                                parser.skipChildren();
+                            } else {
+                                lines.add(parser.getValueAsString());
+                            }
+                        }
+                        item.setResponse(lines.toArray(new String[0]));
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+
+                default:
+                    // resultSet, statementText...
+                    parser.skipChildren();
+            }
+        }
+
+        return item;
+    }
+}
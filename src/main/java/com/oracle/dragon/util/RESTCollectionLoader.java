@@ -0,0 +1,334 @@
+package com.oracle.dragon.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Loads JSON data files (one document per line) into a SODA collection using bulk inserts, without staging them in
+ * Object Storage.
+ * <p>
+ * A reader thread splits the files into documents and packs them into batches handed over to the sender (the caller
+ * thread) through a bounded queue. The reader waits whenever the queue is full and the sender waits while it has as
+ * many batches in flight as the adaptive write concurrency limit of the REST service: memory usage is bounded by the
+ * queue capacity and the number of requests in flight, whatever the size of the files.
+ * <p>
+ * A batch holds consecutive lines of one file. Once inserted, its lines are reported to the {@link InsertedLines}
+ * tracker, which also tells the lines to skip because a previous load inserted them already.
+ */
+public class RESTCollectionLoader {
+    /**
+     * Number of batches ready to be sent.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of failed batches listed by {@link #getErrors()}.
+     */
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    /**
+     * Lines of the data files already inserted into the collection.
+     */
+    public interface InsertedLines {
+        /**
+         * @return true if the line was inserted by a previous load
+         */
+        boolean contains(File file, int lineNumber);
+
+        /**
+         * Records that the given lines are inserted (blank lines and lines inserted before included).
+         *
+         * @throws IOException if the record can't be saved
+         */
+        void add(File file, int firstLine, int lastLine) throws IOException;
+    }
+
+    private static final InsertedLines NO_INSERTED_LINES = new InsertedLines() {
+        @Override
+        public boolean contains(File file, int lineNumber) {
+            return false;
+        }
+
+        @Override
+        public void add(File file, int firstLine, int lastLine) {
+        }
+    };
+
+    private static class Batch {
+        final byte[] documents;
+        final int count;
+        final File file;
+        final int firstLine;
+        final int lastLine;
+
+        Batch(byte[] documents, int count, File file, int firstLine, int lastLine) {
+            this.documents = documents;
+            this.count = count;
+            this.file = file;
+            this.firstLine = firstLine;
+            this.lastLine = lastLine;
+        }
+
+        String origin() {
+            return file.getName() + ":" + firstLine;
+        }
+    }
+
+    /**
+     * Marks the end of the files.
+     */
+    private static final Batch END = new Batch(null, 0, null, 0, 0);
+
+    private final ADBRESTService restService;
+    private final String collectionName;
+    private final int maxBatchDocuments;
+    private final int maxBatchBytes;
+    private final BlockingQueue<Batch> queue;
+
+    private final LongAdder loadedDocuments = new LongAdder();
+    private final LongAdder failedDocuments = new LongAdder();
+    private final LongAdder skippedDocuments = new LongAdder();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    // reader state
+    private byte[] line = new byte[1024];
+    private int lineLength;
+    private ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    private int batchCount;
+    private File batchFile;
+    private int batchFirstLine;
+    private int batchLastLine;
+    private volatile Exception readerFailure;
+    private volatile IOException trackingFailure;
+
+    private InsertedLines insertedLines = NO_INSERTED_LINES;
+
+    // sender state
+    private final Object sentBatches = new Object();
+    private int batchesInFlight;
+
+    private LongConsumer progressListener = loaded -> {
+    };
+
+    public RESTCollectionLoader(ADBRESTService restService, String collectionName) {
+        this(restService, collectionName, ADBRESTService.DEFAULT_BULK_INSERT_DOCUMENTS, ADBRESTService.DEFAULT_BULK_INSERT_BYTES, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public RESTCollectionLoader(ADBRESTService restService, String collectionName, int maxBatchDocuments, int maxBatchBytes, int queueCapacity) {
+        this.restService = restService;
+        this.collectionName = collectionName;
+        this.maxBatchDocuments = maxBatchDocuments;
+        this.maxBatchBytes = maxBatchBytes;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    /**
+     * @param progressListener called with the number of documents loaded so far each time a batch is sent
+     * @return this loader
+     */
+    public RESTCollectionLoader onProgress(LongConsumer progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * @param insertedLines the lines to skip, and where to record the lines inserted
+     * @return this loader
+     */
+    public RESTCollectionLoader trackInsertedLines(InsertedLines insertedLines) {
+        this.insertedLines = insertedLines;
+        return this;
+    }
+
+    public long getLoadedDocuments() {
+        return loadedDocuments.sum();
+    }
+
+    public long getFailedDocuments() {
+        return failedDocuments.sum();
+    }
+
+    /**
+     * @return the number of documents not sent because a previous load inserted them
+     */
+    public long getSkippedDocuments() {
+        return skippedDocuments.sum();
+    }
+
+    /**
+     * @return the first errors, each one prefixed by the file and line of the first document of the failed batch
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Loads the given files, a failed batch not preventing the next ones from being sent.
+     *
+     * @param files the JSON data files
+     * @throws IOException if a file can't be read
+     */
+    public void load(final List<File> files) throws IOException {
+        final Thread reader = new Thread(() -> {
+            try {
+                read(files);
+            } catch (Exception e) {
+                readerFailure = e;
+            } finally {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException ignored) {
+                    // the sender is gone
+                }
+            }
+        }, "dragon-reader-" + collectionName);
+        reader.setDaemon(true);
+        reader.start();
+
+        // one party for this thread, one more per batch in flight
+        final Phaser inFlight = new Phaser(1);
+        try {
+            Batch next;
+            while ((next = queue.take()) != END) {
+                final Batch toSend = next;
+                synchronized (sentBatches) {
+                    while (batchesInFlight >= restService.getWriteConcurrencyLimit()) {
+                        sentBatches.wait();
+                    }
+                    batchesInFlight++;
+                }
+                inFlight.register();
+                restService.insertJSONArrayAsync(collectionName, toSend.documents, toSend.count).whenComplete((r, t) -> {
+                    if (t == null) {
+                        loadedDocuments.add(toSend.count);
+                        try {
+                            insertedLines.add(toSend.file, toSend.firstLine, toSend.lastLine);
+                        } catch (IOException e) {
+                            trackingFailure = e;
+                        }
+                    } else {
+                        failedDocuments.add(toSend.count);
+                        if (errors.size() < MAX_REPORTED_ERRORS) {
+                            errors.add(toSend.origin() + ": " + rootCauseMessage(t));
+                        }
+                    }
+                    synchronized (sentBatches) {
+                        batchesInFlight--;
+                        sentBatches.notifyAll();
+                    }
+                    inFlight.arriveAndDeregister();
+                });
+                progressListener.accept(loadedDocuments.sum());
+            }
+        } catch (InterruptedException e) {
+            reader.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("loading of collection " + collectionName + " interrupted");
+        } finally {
+            inFlight.arriveAndAwaitAdvance();
+        }
+
+        if (readerFailure instanceof IOException) {
+            throw (IOException) readerFailure;
+        } else if (readerFailure != null) {
+            throw new IOException(readerFailure);
+        }
+        if (trackingFailure != null) {
+            throw trackingFailure;
+        }
+    }
+
+    private void read(final List<File> files) throws IOException, InterruptedException {
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+
+        for (File file : files) {
+            int lineNumber = 1;
+            try (InputStream in = new FileInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    int start = 0;
+                    for (int i = 0; i < read; i++) {
+                        if (buffer[i] == '\n') {
+                            appendToLine(buffer, start, i - start);
+                            addDocument(file, lineNumber++);
+                            start = i + 1;
+                        }
+                    }
+                    appendToLine(buffer, start, read - start);
+                }
+            }
+            // last line may miss its terminator
+            addDocument(file, lineNumber);
+            flush();
+        }
+    }
+
+    private void appendToLine(final byte[] buffer, final int offset, final int length) {
+        if (lineLength + length > line.length) {
+            byte[] larger = new byte[Math.max(line.length * 2, lineLength + length)];
+            System.arraycopy(line, 0, larger, 0, lineLength);
+            line = larger;
+        }
+        System.arraycopy(buffer, offset, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private void addDocument(final File file, final int lineNumber) throws InterruptedException {
+        int start = 0;
+        int end = lineLength;
+        lineLength = 0;
+
+        // blank lines are ignored, as well as the carriage returns of Windows line endings
+        while (start < end && (line[start] & 0xff) <= ' ') start++;
+        while (end > start && (line[end - 1] & 0xff) <= ' ') end--;
+        if (start == end) return;
+
+        if (insertedLines.contains(file, lineNumber)) {
+            skippedDocuments.increment();
+            return;
+        }
+
+        if (batchCount > 0 && (batchCount >= maxBatchDocuments || batch.size() + end - start + 2 > maxBatchBytes)) {
+            flush();
+        }
+
+        if (batchCount == 0) {
+            batchFile = file;
+            batchFirstLine = lineNumber;
+        }
+        batchLastLine = lineNumber;
+        batch.write(batchCount == 0 ? '[' : ',');
+        batch.write(line, start, end - start);
+        batchCount++;
+    }
+
+    private void flush() throws InterruptedException {
+        if (batchCount == 0) return;
+
+        batch.write(']');
+        queue.put(new Batch(batch.toByteArray(), batchCount, batchFile, batchFirstLine, batchLastLine));
+        batch = new ByteArrayOutputStream();
+        batchCount = 0;
+    }
+
+    private static String rootCauseMessage(Throwable t) {
+        while (t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t.getMessage();
+    }
+}
@@ -0,0 +1,95 @@
+package com.oracle.dragon.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How {@link ADBRESTService} reacts to throttling (HTTP 429/503) and transient failures.
+ * <p>
+ * Requests are retried with an exponential backoff and full jitter, a <code>Retry-After</code> header sent by ORDS
+ * taking precedence when it asks for a longer wait. Requests which may have been processed (timeouts, gateway errors)
+ * are only retried when idempotent. Slow idempotent reads can also be hedged: once their latency exceeds the given
+ * percentile of the recent ones, a second identical request is sent and the first response wins.
+ */
+public class RetryPolicy {
+    public static final int DEFAULT_MAX_RETRIES = 5;
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 100;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 10_000;
+
+    /**
+     * Hedging is disabled by default.
+     */
+    public static final int DEFAULT_HEDGE_PERCENTILE = 0;
+
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MS;
+    private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MS;
+    private int hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+
+    /**
+     * @return a policy failing on the first error
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy().maxRetries(0);
+    }
+
+    /**
+     * @param maxRetries the maximum number of retries of one request (0 to disable retries)
+     * @return this policy
+     */
+    public RetryPolicy maxRetries(final int maxRetries) {
+        this.maxRetries = Math.max(0, maxRetries);
+        return this;
+    }
+
+    /**
+     * @param initialBackoffMillis the upper bound of the first wait, doubled at each retry
+     * @return this policy
+     */
+    public RetryPolicy initialBackoff(final long initialBackoffMillis) {
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        return this;
+    }
+
+    /**
+     * @param maxBackoffMillis the maximum wait before a retry; a longer <code>Retry-After</code> fails the request
+     *                         instead of blocking it
+     * @return this policy
+     */
+    public RetryPolicy maxBackoff(final long maxBackoffMillis) {
+        this.maxBackoffMillis = Math.max(1, maxBackoffMillis);
+        return this;
+    }
+
+    /**
+     * @param hedgePercentile the latency percentile (1-99) after which an idempotent read is hedged, 0 to disable
+     *                        hedging
+     * @return this policy
+     */
+    public RetryPolicy hedgePercentile(final int hedgePercentile) {
+        this.hedgePercentile = hedgePercentile <= 0 ? 0 : Math.min(99, hedgePercentile);
+        return this;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    public int getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * @param attempt the number of attempts already made (starting at 0)
+     * @return a random wait between 0 and the exponential backoff of this attempt (full jitter)
+     */
+    long backoff(final int attempt) {
+        final int shift = Math.min(attempt, 30);
+        // the shift would overflow beyond the maximum backoff
+        final long ceiling = initialBackoffMillis > maxBackoffMillis >> shift ? maxBackoffMillis : initialBackoffMillis << shift;
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,89 @@
+package com.oracle.dragon.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a bulk insert into a SODA collection: the keys assigned to the documents of each batch, or the reason why
+ * a batch failed (the other batches being inserted anyway).
+ */
+public class SODABulkInsertResult {
+
+    public static class BatchResult {
+        private final int index;
+        private final int documents;
+        private final List<String> keys;
+        private final Throwable error;
+
+        BatchResult(int index, int documents, List<String> keys, Throwable error) {
+            this.index = index;
+            this.documents = documents;
+            this.keys = keys;
+            this.error = error;
+        }
+
+        /**
+         * @return the position of this batch in the input (starting at 0)
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public int getDocuments() {
+            return documents;
+        }
+
+        /**
+         * @return the keys of the inserted documents, in input order (empty if the batch failed)
+         */
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+    }
+
+    private final List<BatchResult> batches = Collections.synchronizedList(new ArrayList<>());
+
+    void add(BatchResult batch) {
+        batches.add(batch);
+    }
+
+    /**
+     * @return the result of each batch, in input order
+     */
+    public List<BatchResult> getBatches() {
+        final List<BatchResult> result;
+        synchronized (batches) {
+            result = new ArrayList<>(batches);
+        }
+        result.sort(Comparator.comparingInt(BatchResult::getIndex));
+        return result;
+    }
+
+    public long getInsertedDocuments() {
+        synchronized (batches) {
+            return batches.stream().filter(BatchResult::isSuccessful).mapToLong(BatchResult::getDocuments).sum();
+        }
+    }
+
+    public long getFailedDocuments() {
+        synchronized (batches) {
+            return batches.stream().filter(b -> !b.isSuccessful()).mapToLong(BatchResult::getDocuments).sum();
+        }
+    }
+
+    public boolean hasFailures() {
+        synchronized (batches) {
+            return batches.stream().anyMatch(b -> !b.isSuccessful());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.oracle.dragon.util;
+
+/**
+ * Outcome of a SODA bulk update or delete driven by a QBE.
+ */
+public class SODABulkOperationResult {
+    private final long matched;
+    private final long affected;
+
+    public SODABulkOperationResult(long matched, long affected) {
+        this.matched = matched;
+        this.affected = affected;
+    }
+
+    /**
+     * @return the number of documents matching the QBE
+     */
+    public long getMatched() {
+        return matched;
+    }
+
+    /**
+     * @return the number of documents actually updated or deleted
+     */
+    public long getAffected() {
+        return affected;
+    }
+}
@@ -0,0 +1,120 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Storage options of a SODA collection, sent as the collection specification when creating it.
+ * <p>
+ * Defaults are the ones of SODA (UUID keys assigned by the database, UUID versions, BLOB content and last-modified
+ * column). Ingest heavy collections benefit from client assigned keys, no versioning, native binary JSON content and
+ * no last-modified column.
+ *
+ * @see <a href="https://docs.oracle.com/en/database/oracle/simple-oracle-document-access/adsdi/soda-collection-metadata-components-reference.html">SODA Collection Metadata Components</a>
+ */
+public class SODACollectionMetadata {
+    public enum KeyAssignment {
+        UUID,
+        GUID,
+        /**
+         * Keys given when inserting documents, which COPY_COLLECTION and bulk inserts can't do: such collections can't
+         * be loaded from data files.
+         */
+        CLIENT
+    }
+
+    public enum Versioning {
+        UUID,
+        TIMESTAMP,
+        MD5,
+        SHA256,
+        SEQUENTIAL,
+        NONE
+    }
+
+    public enum Content {
+        /**
+         * Textual JSON stored in a BLOB.
+         */
+        BLOB,
+        /**
+         * Binary JSON (OSON) stored in a BLOB.
+         */
+        OSON,
+        /**
+         * Native JSON data type (Oracle Database 21c and later).
+         */
+        JSON
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private KeyAssignment keyAssignment = KeyAssignment.UUID;
+    private Versioning versioning = Versioning.UUID;
+    private Content content = Content.BLOB;
+    private boolean lastModified = true;
+
+    public SODACollectionMetadata keyAssignment(final KeyAssignment keyAssignment) {
+        this.keyAssignment = keyAssignment;
+        return this;
+    }
+
+    public KeyAssignment getKeyAssignment() {
+        return keyAssignment;
+    }
+
+    public SODACollectionMetadata versioning(final Versioning versioning) {
+        this.versioning = versioning;
+        return this;
+    }
+
+    public SODACollectionMetadata content(final Content content) {
+        this.content = content;
+        return this;
+    }
+
+    public SODACollectionMetadata lastModified(final boolean lastModified) {
+        this.lastModified = lastModified;
+        return this;
+    }
+
+    /**
+     * @return the collection specification as expected by the SODA REST API
+     */
+    public String toJSON() {
+        final ObjectNode spec = MAPPER.createObjectNode();
+
+        spec.putObject("keyColumn")
+                .put("name", "ID")
+                .put("sqlType", "VARCHAR2")
+                .put("maxLength", 255)
+                .put("assignmentMethod", keyAssignment.name());
+
+        final ObjectNode contentColumn = spec.putObject("contentColumn").put("name", "JSON_DOCUMENT");
+        switch (content) {
+            case JSON:
+                contentColumn.put("sqlType", "JSON");
+                break;
+
+            case OSON:
+                contentColumn.put("sqlType", "BLOB").put("jsonFormat", "OSON");
+                break;
+
+            default:
+                contentColumn.put("sqlType", "BLOB");
+        }
+
+        if (versioning != Versioning.NONE) {
+            spec.putObject("versionColumn").put("name", "VERSION").put("method", versioning.name());
+        }
+
+        if (lastModified) {
+            spec.putObject("lastModifiedColumn").put("name", "LAST_MODIFIED");
+        }
+
+        spec.putObject("creationTimeColumn").put("name", "CREATED_ON");
+        spec.put("readOnly", false);
+
+        return spec.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Documents of a SODA collection matching a QBE, fetched page by page.
+ */
+class SODADocumentIterator extends JSONPageIterator {
+    private final ADBRESTService restService;
+    private final String collectionName;
+    private final SODAQuery query;
+
+    /**
+     * Keyset field value of the last document received (keyset pagination only).
+     */
+    private JsonNode lastKeysetValue;
+
+    SODADocumentIterator(ADBRESTService restService, String collectionName, SODAQuery query) {
+        super(query.getPageSize());
+        this.restService = restService;
+        this.collectionName = collectionName;
+        this.query = query;
+    }
+
+    @Override
+    protected InputStream openPage(long offset, int pageSize) throws Exception {
+        final boolean keyset = query.getKeysetField() != null;
+        // keyset pagination needs the content to find out the keyset value of the last document
+        final SODAQuery.Fields fields = keyset && query.getFields() == SODAQuery.Fields.id ? SODAQuery.Fields.all : query.getFields();
+        return restService.openSODAQueryPage(collectionName, query.toFilterSpec(lastKeysetValue), keyset ? 0 : offset, pageSize, fields.name());
+    }
+
+    @Override
+    protected boolean seekItems(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) return false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("items".equals(field)) {
+                return parser.currentToken() == JsonToken.START_ARRAY;
+            } else if ("hasMore".equals(field)) {
+                setHasMore(parser.getBooleanValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    protected void readTrailer(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("hasMore".equals(field)) {
+                setHasMore(parser.getBooleanValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    @Override
+    protected JsonNode map(JsonNode item) {
+        final JsonNode value = item.get("value");
+
+        if (query.getKeysetField() != null) {
+            lastKeysetValue = value == null ? null : query.keysetValue(value);
+            if (lastKeysetValue == null) {
+                close();
+                throw new IllegalStateException("Keyset field " + query.getKeysetField() + " missing from document " + item.get("id"));
+            }
+        }
+
+        if (value != null && item.isObject() && query.getFields() == SODAQuery.Fields.id) {
+            ((ObjectNode) item).remove("value");
+        }
+
+        return item;
+    }
+}
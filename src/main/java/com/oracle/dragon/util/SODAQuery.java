@@ -0,0 +1,152 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Query-by-example (QBE) on a SODA collection: filter, ordering and pagination.
+ * <p>
+ * The filter and the ordering are evaluated by the database. Pages are retrieved either by offset, or by keyset when a
+ * keyset field is given: each page then asks for the documents whose keyset field value is greater than the last one
+ * received, which keeps the cost of deep pages constant. The keyset field must be unique and present in every
+ * matching document. Ordering and keyset pagination are exclusive.
+ * <p>
+ * SODA REST returns whole documents: only the keys can be asked for instead (see {@link Fields#id}).
+ */
+public class SODAQuery {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * What SODA returns for each document.
+     */
+    public enum Fields {
+        /**
+         * Keys, versions, timestamps and content.
+         */
+        all,
+        /**
+         * Keys only (no document content transferred).
+         */
+        id,
+        /**
+         * Content only.
+         */
+        value
+    }
+
+    private ObjectNode filter = MAPPER.createObjectNode();
+    private final Map<String, Integer> orderBy = new LinkedHashMap<>();
+    private Fields fields = Fields.all;
+    private int pageSize = ADBRESTService.DEFAULT_QUERY_PAGE_SIZE;
+    private String keysetField;
+
+    /**
+     * @param qbe the QBE filter, for example <code>{"status": "open", "amount": {"$gt": 100}}</code>
+     * @return this query
+     */
+    public SODAQuery filter(final String qbe) {
+        try {
+            this.filter = (ObjectNode) MAPPER.readTree(qbe);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid QBE filter: " + qbe, e);
+        }
+        return this;
+    }
+
+    /**
+     * @param path      the field path to sort on (for example <code>customer.name</code>)
+     * @param ascending the sort direction
+     * @return this query
+     */
+    public SODAQuery orderBy(final String path, final boolean ascending) {
+        orderBy.put(path, ascending ? 1 : -1);
+        return this;
+    }
+
+    public SODAQuery fields(final Fields fields) {
+        this.fields = fields;
+        return this;
+    }
+
+    public SODAQuery pageSize(final int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Enables keyset pagination on the given (unique) field path, documents being then sorted ascending on it (no
+     * other ordering can be given).
+     *
+     * @param path the field path used to resume from one page to the next
+     * @return this query
+     */
+    public SODAQuery keyset(final String path) {
+        this.keysetField = path;
+        return this;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Fields getFields() {
+        return fields;
+    }
+
+    public String getKeysetField() {
+        return keysetField;
+    }
+
+    /**
+     * Builds the SODA filter specification of a page.
+     *
+     * @param lastKeysetValue the keyset field value of the last document received, null for the first page
+     * @return the filter specification to post
+     * @throws IllegalStateException if both an ordering and keyset pagination are asked for
+     */
+    String toFilterSpec(final JsonNode lastKeysetValue) {
+        if (keysetField != null && !orderBy.isEmpty()) {
+            throw new IllegalStateException("Keyset pagination sorts on " + keysetField + ": no other ordering can be given");
+        }
+
+        final ObjectNode spec = MAPPER.createObjectNode();
+
+        if (keysetField != null && lastKeysetValue != null) {
+            final ArrayNode and = MAPPER.createArrayNode();
+            and.add(filter);
+            and.addObject().putObject(keysetField).set("$gt", lastKeysetValue);
+            spec.putObject("$query").set("$and", and);
+        } else {
+            spec.set("$query", filter);
+        }
+
+        final ObjectNode order = spec.putObject("$orderby");
+        if (keysetField != null) {
+            order.put(keysetField, 1);
+        } else {
+            orderBy.forEach(order::put);
+        }
+
+        return spec.toString();
+    }
+
+    /**
+     * @param document the document content
+     * @return the value of the keyset field in this document
+     */
+    JsonNode keysetValue(final JsonNode document) {
+        JsonNode value = document;
+        for (String step : keysetField.split("\\.")) {
+            if (value == null) return null;
+            value = value.get(step);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,106 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.oracle.dragon.model.ORDSSQLServiceBind;
+import com.oracle.dragon.util.exception.ORDSSQLServiceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Rows of a SQL query run by the REST Enabled SQL Service, fetched using its offset/limit pagination.
+ */
+class SQLResultSetIterator extends JSONPageIterator {
+    private final ADBRESTService restService;
+    private final String statementText;
+    private final ORDSSQLServiceBind[] binds;
+    private final boolean readOnly;
+
+    SQLResultSetIterator(ADBRESTService restService, String statementText, ORDSSQLServiceBind[] binds, int pageSize, boolean readOnly) {
+        super(pageSize);
+        this.restService = restService;
+        this.statementText = statementText;
+        this.binds = binds;
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    protected InputStream openPage(long offset, int pageSize) throws Exception {
+        return restService.openSQLQueryPage(statementText, binds, offset, pageSize, readOnly);
+    }
+
+    /**
+     * The rows are found inside <code>items[0].resultSet.items</code>.
+     */
+    @Override
+    protected boolean seekItems(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) return false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("items".equals(field)) {
+                return parser.currentToken() == JsonToken.START_ARRAY && parser.nextToken() == JsonToken.START_OBJECT && seekResultSetItems(parser);
+            }
+            parser.skipChildren();
+        }
+
+        return false;
+    }
+
+    private boolean seekResultSetItems(JsonParser parser) throws IOException {
+        int errorCode = 0;
+        String errorDetails = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "errorCode":
+                    errorCode = parser.getIntValue();
+                    break;
+
+                case "errorDetails":
+                    errorDetails = parser.getText();
+                    break;
+
+                case "resultSet":
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        final String resultSetField = parser.getCurrentName();
+                        parser.nextToken();
+                        if ("items".equals(resultSetField)) {
+                            return true;
+                        } else if ("hasMore".equals(resultSetField)) {
+                            setHasMore(parser.getBooleanValue());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    return false;
+
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (errorCode != 0) {
+            throw new RuntimeException("REST SQL Service could not run " + statementText, new ORDSSQLServiceException(errorDetails));
+        }
+
+        return false;
+    }
+
+    @Override
+    protected void readTrailer(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("hasMore".equals(field)) {
+                setHasMore(parser.getBooleanValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+}
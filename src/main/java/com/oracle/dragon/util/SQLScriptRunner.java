@@ -0,0 +1,219 @@
+package com.oracle.dragon.util;
+
+import com.oracle.dragon.model.ORDSSQLServiceResponse;
+import com.oracle.dragon.model.ORDSSQLServiceResponseItems;
+import com.oracle.dragon.util.exception.SQLScriptExecutionFailedException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs a SQL script using the REST Enabled SQL Service.
+ * <p>
+ * The script file is streamed and split into statements (see {@link SQLScriptSplitter}). Statements are packed into
+ * batches bounded in size (UTF-8 bytes) and number, each batch being run in one HTTPS call.
+ * <p>
+ * Statements following a line <code>-- dragon:parallel</code> are independent from each other: their batches are run
+ * concurrently until a line <code>-- dragon:serial</code> (or the end of the script) is reached.
+ */
+public class SQLScriptRunner {
+    public static final String PARALLEL_MARKER = "-- dragon:parallel";
+    public static final String SERIAL_MARKER = "-- dragon:serial";
+
+    public static final int DEFAULT_MAX_BATCH_BYTES = 256 * 1024;
+    public static final int DEFAULT_MAX_BATCH_STATEMENTS = 500;
+
+    /**
+     * Maximum number of errors listed in the failure message.
+     */
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static class Statement {
+        final int line;
+        final String text;
+
+        Statement(int line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    private static class Batch {
+        final List<Statement> statements = new ArrayList<>();
+        final StringBuilder script = new StringBuilder();
+        int bytes;
+    }
+
+    private static class StatementError {
+        final int line;
+        final String details;
+
+        StatementError(int line, String details) {
+            this.line = line;
+            this.details = details;
+        }
+    }
+
+    private final ADBRESTService restService;
+    private final File script;
+    private final int maxBatchBytes;
+    private final int maxBatchStatements;
+    private final DSSession.Section section;
+
+    private final List<StatementError> errors = Collections.synchronizedList(new ArrayList<>());
+    private final List<CompletableFuture<Void>> parallelBatches = new ArrayList<>();
+
+    private final SQLScriptSplitter splitter = new SQLScriptSplitter(this::addStatement);
+    private boolean parallel;
+
+    private Batch batch = new Batch();
+    private int statements;
+    private int batches;
+
+    public SQLScriptRunner(ADBRESTService restService, File script, int maxBatchBytes, int maxBatchStatements, DSSession.Section section) {
+        this.restService = restService;
+        this.script = script;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchStatements = maxBatchStatements;
+        this.section = section;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    /**
+     * Runs the whole script.
+     *
+     * @throws SQLScriptExecutionFailedException if the script can't be read or sent, or if at least one statement failed
+     */
+    public void run() throws SQLScriptExecutionFailedException {
+        try (LineNumberReader reader = new LineNumberReader(new InputStreamReader(new FileInputStream(script), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (splitter.isBetweenStatements()) {
+                    final String trimmed = line.trim();
+                    if (PARALLEL_MARKER.equalsIgnoreCase(trimmed)) {
+                        flush();
+                        parallel = true;
+                        continue;
+                    }
+                    if (SERIAL_MARKER.equalsIgnoreCase(trimmed)) {
+                        flush();
+                        awaitParallelBatches();
+                        parallel = false;
+                        continue;
+                    }
+                }
+
+                splitter.parseLine(line, reader.getLineNumber());
+            }
+
+            // last statement may miss its terminator
+            splitter.end();
+            flush();
+            awaitParallelBatches();
+        } catch (IOException | RuntimeException e) {
+            throw new SQLScriptExecutionFailedException(script.getName(), e instanceof CompletionException ? e.getCause() : e);
+        }
+
+        if (!errors.isEmpty()) {
+            errors.sort(Comparator.comparingInt(e -> e.line));
+            final StringBuilder message = new StringBuilder();
+            for (int i = 0; i < Math.min(errors.size(), MAX_REPORTED_ERRORS); i++) {
+                final StatementError error = errors.get(i);
+                message.append('\n').append(script.getName()).append(':').append(error.line).append(": ").append(error.details);
+            }
+            if (errors.size() > MAX_REPORTED_ERRORS) {
+                message.append("\n... and ").append(errors.size() - MAX_REPORTED_ERRORS).append(" more");
+            }
+
+            throw new SQLScriptExecutionFailedException(script.getName(), errors.size(), message.toString());
+        }
+    }
+
+    private static int utf8Length(final String text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private void addStatement(final int line, final String terminatedText) {
+        // the size of the request body, sent in UTF-8
+        final int bytes = utf8Length(terminatedText);
+        if (!batch.statements.isEmpty() && (batch.statements.size() >= maxBatchStatements || batch.bytes + bytes > maxBatchBytes)) {
+            flush();
+        }
+
+        batch.statements.add(new Statement(line, terminatedText));
+        batch.script.append(terminatedText);
+        batch.bytes += bytes;
+        statements++;
+    }
+
+    private void flush() {
+        if (batch.statements.isEmpty()) return;
+
+        final Batch toRun = batch;
+        batch = new Batch();
+        batches++;
+
+        section.print(String.format("%d statements sent in %d calls", statements, batches));
+
+        if (parallel) {
+            parallelBatches.add(restService.executeScriptAsync(toRun.script.toString()).thenAccept(r -> collectErrors(toRun, r)));
+        } else {
+            collectErrors(toRun, restService.executeScript(toRun.script.toString()));
+        }
+    }
+
+    private void awaitParallelBatches() {
+        if (parallelBatches.isEmpty()) return;
+
+        try {
+            CompletableFuture.allOf(parallelBatches.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            parallelBatches.clear();
+        }
+    }
+
+    private void collectErrors(final Batch batch, final ORDSSQLServiceResponse response) {
+        if (response.getItems() == null) return;
+
+        int position = 0;
+        for (ORDSSQLServiceResponseItems item : response.getItems()) {
+            if (item.getErrorCode() != 0) {
+                final int index = item.getStatementId() >= 1 && item.getStatementId() <= batch.statements.size() ? item.getStatementId() - 1 : Math.min(position, batch.statements.size() - 1);
+                final int line = batch.statements.get(index).line + Math.max(item.getErrorLine(), 1) - 1;
+                errors.add(new StatementError(line, item.getErrorDetails()));
+            }
+            position++;
+        }
+    }
+}
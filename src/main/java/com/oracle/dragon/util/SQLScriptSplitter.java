@@ -0,0 +1,221 @@
+package com.oracle.dragon.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Splits the lines of a SQL script into statements: SQL statements end with a semicolon (or a line containing solely
+ * a slash), PL/SQL blocks with a line containing solely a slash and SQL*Plus commands with the end of the line.
+ * <p>
+ * Comments, quoted literals (including q-quoted ones such as <code>q'[...]'</code>) and quoted identifiers are kept as
+ * they are, a semicolon inside them not ending the statement.
+ */
+class SQLScriptSplitter {
+    interface StatementConsumer {
+        /**
+         * @param line the line the statement starts at
+         * @param text the statement followed by its terminator, as expected in a script sent to the database
+         */
+        void accept(int line, String text);
+    }
+
+    private static final Pattern PLSQL_BLOCK_START = Pattern.compile(
+            "(BEGIN|DECLARE|CREATE\\s+(OR\\s+REPLACE\\s+)?((NON)?EDITIONABLE\\s+)?(FUNCTION|PROCEDURE|PACKAGE|TRIGGER|TYPE|LIBRARY|JAVA))\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * SQL*Plus commands, SET TRANSACTION, SET ROLE and SET CONSTRAINT(S) being SQL statements.
+     */
+    private static final Pattern SQLPLUS_COMMAND = Pattern.compile(
+            "(SET\\b(?!\\s+(TRANSACTION|ROLE|CONSTRAINTS?)\\b)|(PROMPT|SPOOL|WHENEVER|SHOW|DEFINE|UNDEFINE|REM|REMARK|EXEC|EXECUTE)\\b)",
+            Pattern.CASE_INSENSITIVE);
+
+    private enum Kind {
+        None,
+        SQL,
+        PLSQL,
+        SQLPlus
+    }
+
+    private final StatementConsumer consumer;
+
+    private final StringBuilder current = new StringBuilder();
+    private Kind kind = Kind.None;
+    private int startLine;
+    private boolean inBlockComment;
+    /**
+     * End of the quoted literal or identifier being parsed (<code>'</code>, <code>"</code> or the closing delimiter of
+     * a q-quoted literal followed by <code>'</code>), null outside quotes.
+     */
+    private String quoteEnd;
+
+    SQLScriptSplitter(StatementConsumer consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * @return true if no statement nor comment is being parsed
+     */
+    boolean isBetweenStatements() {
+        return kind == Kind.None && !inBlockComment;
+    }
+
+    /**
+     * Ends the last statement, which may miss its terminator.
+     */
+    void end() {
+        addStatement();
+    }
+
+    void parseLine(final String line, final int lineNumber) {
+        if (kind == Kind.PLSQL) {
+            if ("/".equals(line.trim())) {
+                addStatement();
+            } else {
+                current.append(line).append('\n');
+            }
+            return;
+        }
+
+        if (kind == Kind.SQL && quoteEnd == null && !inBlockComment && "/".equals(line.trim())) {
+            addStatement();
+            return;
+        }
+
+        final int length = line.length();
+        int i = 0;
+        while (i < length) {
+            if (inBlockComment) {
+                final int end = line.indexOf("*/", i);
+                final int next = end < 0 ? length : end + 2;
+                if (kind != Kind.None) current.append(line, i, next);
+                inBlockComment = end < 0;
+                i = next;
+                continue;
+            }
+
+            if (quoteEnd != null) {
+                final int end = line.indexOf(quoteEnd, i);
+                final int next = end < 0 ? length : end + quoteEnd.length();
+                current.append(line, i, next);
+                if (end >= 0) quoteEnd = null;
+                i = next;
+                continue;
+            }
+
+            final char c = line.charAt(i);
+
+            if (kind == Kind.None) {
+                if (Character.isWhitespace(c) || c == ';' || c == '/' && !line.startsWith("/*", i)) {
+                    i++;
+                    continue;
+                }
+                if (line.startsWith("--", i)) {
+                    return;
+                }
+                if (line.startsWith("/*", i)) {
+                    inBlockComment = true;
+                    i += 2;
+                    continue;
+                }
+
+                final String rest = line.substring(i);
+                startLine = lineNumber;
+                if (PLSQL_BLOCK_START.matcher(rest).lookingAt()) {
+                    kind = Kind.PLSQL;
+                    current.append(rest).append('\n');
+                    return;
+                }
+                if (SQLPLUS_COMMAND.matcher(rest).lookingAt()) {
+                    kind = Kind.SQLPlus;
+                    current.append(rest);
+                    addStatement();
+                    return;
+                }
+                kind = Kind.SQL;
+            }
+
+            if (line.startsWith("--", i)) {
+                current.append(line, i, length);
+                i = length;
+            } else if (line.startsWith("/*", i)) {
+                inBlockComment = true;
+                current.append("/*");
+                i += 2;
+            } else if (isQQuoteStart(line, i)) {
+                quoteEnd = qQuoteEnd(line.charAt(i + 2)) + "'";
+                current.append(line, i, i + 3);
+                i += 3;
+            } else if (c == '\'' || c == '"') {
+                quoteEnd = String.valueOf(c);
+                current.append(c);
+                i++;
+            } else if (c == ';') {
+                addStatement();
+                i++;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+
+        if (kind == Kind.SQL) {
+            current.append('\n');
+        }
+    }
+
+    /**
+     * @return true if a q-quoted literal (<code>q'[...]'</code>, also prefixed by N for national ones) starts at the
+     * given position
+     */
+    private static boolean isQQuoteStart(final String line, final int i) {
+        if (i + 2 >= line.length() || Character.toUpperCase(line.charAt(i)) != 'Q' || line.charAt(i + 1) != '\'') {
+            return false;
+        }
+
+        int start = i;
+        if (start > 0 && Character.toUpperCase(line.charAt(start - 1)) == 'N') start--;
+        return start == 0 || !isIdentifierPart(line.charAt(start - 1));
+    }
+
+    private static boolean isIdentifierPart(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '"';
+    }
+
+    private static char qQuoteEnd(final char delimiter) {
+        switch (delimiter) {
+            case '[':
+                return ']';
+            case '{':
+                return '}';
+            case '(':
+                return ')';
+            case '<':
+                return '>';
+            default:
+                return delimiter;
+        }
+    }
+
+    private void addStatement() {
+        final String text = current.toString().trim();
+        final Kind statementKind = kind;
+        current.setLength(0);
+        kind = Kind.None;
+
+        if (text.isEmpty()) return;
+
+        final String terminatedText;
+        switch (statementKind) {
+            case PLSQL:
+                terminatedText = text + "\n/\n";
+                break;
+            case SQL:
+                terminatedText = text + ";\n";
+                break;
+            default:
+                terminatedText = text + "\n";
+        }
+
+        consumer.accept(startLine, terminatedText);
+    }
+}
@@ -0,0 +1,218 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.oracle.dragon.model.ORDSSQLServiceBind;
+
+/**
+ * Load of a collection run by a DBMS_SCHEDULER job, so that no REST request stays open during the load.
+ * <p>
+ * The job is named after the collection: a load can be followed from another dragon process (re-attach) as long as
+ * the job is running or its run is logged, given the job runs and load operations preceding the load (recorded when
+ * submitting it). Progress is read from <code>USER_LOAD_OPERATIONS</code>, whose rows name the table backing the
+ * collection (<code>USER_SODA_COLLECTIONS.TABLE_NAME</code>), not the collection itself.
+ */
+public class SchedulerLoadJob {
+    public enum State {
+        /**
+         * No job nor job run found for the collection.
+         */
+        UNKNOWN,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private static final String TABLE_NAME_QUERY =
+            "SELECT (SELECT c.table_name FROM user_soda_collections c WHERE c.uri_name = :collection_name) AS table_name FROM dual";
+
+    private static final String STATUS_QUERY =
+            "WITH p AS (SELECT :job_name AS job_name, :table_name AS table_name, :log_id AS log_id, :load_id AS load_id FROM dual)\n" +
+            "SELECT (SELECT j.state FROM user_scheduler_jobs j WHERE j.job_name = p.job_name) AS state,\n" +
+            "       (SELECT MAX(d.status) KEEP (DENSE_RANK LAST ORDER BY d.log_id) FROM user_scheduler_job_run_details d WHERE d.job_name = p.job_name AND d.log_id > p.log_id) AS run_status,\n" +
+            "       (SELECT MAX(d.errors) KEEP (DENSE_RANK LAST ORDER BY d.log_id) FROM user_scheduler_job_run_details d WHERE d.job_name = p.job_name AND d.log_id > p.log_id) AS run_errors,\n" +
+            "       (SELECT MAX(o.rows_loaded) KEEP (DENSE_RANK LAST ORDER BY o.id) FROM user_load_operations o WHERE o.type = 'COPY' AND o.table_name = p.table_name AND o.id > p.load_id) AS rows_loaded\n" +
+            "FROM p";
+
+    private final ADBRESTService restService;
+    private final String collectionName;
+    private final String jobName;
+
+    /**
+     * The table backing the collection, resolved when submitting or at the first poll of an attached load.
+     */
+    private String tableName;
+
+    /**
+     * Only job runs and load operations following these ones belong to this load.
+     */
+    private long lastLogId;
+    private long lastLoadId;
+
+    private State state = State.UNKNOWN;
+    private long rowsLoaded;
+    private String errors;
+
+    private long firstPollNanos;
+    private long firstPollRows = -1;
+    private double rowsPerSecond;
+
+    public SchedulerLoadJob(ADBRESTService restService, String collectionName) {
+        this.restService = restService;
+        this.collectionName = collectionName;
+        this.jobName = jobName(collectionName);
+    }
+
+    /**
+     * @return the scheduler job name of the load of the given collection (a valid unquoted identifier)
+     */
+    public static String jobName(String collectionName) {
+        final String name = "DRAGON_LOAD_" + collectionName.toUpperCase().replaceAll("[^A-Z0-9_]", "_");
+        return name.length() > 128 ? name.substring(0, 128) : name;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public long getLastLogId() {
+        return lastLogId;
+    }
+
+    public long getLastLoadId() {
+        return lastLoadId;
+    }
+
+    /**
+     * Follows a load submitted by another process.
+     *
+     * @param lastLogId  the last job run logged when the load was submitted
+     * @param lastLoadId the last load operation when the load was submitted
+     */
+    public void attach(long lastLogId, long lastLoadId) {
+        this.lastLogId = lastLogId;
+        this.lastLoadId = lastLoadId;
+        this.state = State.RUNNING;
+    }
+
+    /**
+     * Creates and starts the job, failing if a load of the collection is already running.
+     *
+     * @param action   the PL/SQL statements to run
+     * @param jobClass the consumer group of the job (null for the default one)
+     */
+    public void submit(String action, ServiceLevel jobClass) {
+        try (JSONPageIterator baseline = restService.queryReadOnly(
+                "SELECT (SELECT NVL(MAX(log_id), 0) FROM user_scheduler_job_run_details WHERE job_name = :job_name) AS log_id,\n" +
+                "       (SELECT NVL(MAX(id), 0) FROM user_load_operations) AS load_id,\n" +
+                "       (SELECT c.table_name FROM user_soda_collections c WHERE c.uri_name = :collection_name) AS table_name\n" +
+                "FROM dual",
+                new ORDSSQLServiceBind("job_name", ORDSSQLServiceBind.VARCHAR2, jobName),
+                new ORDSSQLServiceBind("collection_name", ORDSSQLServiceBind.VARCHAR2, collectionName))) {
+            final JsonNode row = baseline.next();
+            lastLogId = row.path("log_id").asLong();
+            lastLoadId = row.path("load_id").asLong();
+            tableName = tableName(row);
+        }
+
+        restService.execute(
+                "BEGIN\n" +
+                "    DBMS_SCHEDULER.CREATE_JOB(\n" +
+                "        job_name => :job_name,\n" +
+                "        job_type => 'PLSQL_BLOCK',\n" +
+                "        job_action => :job_action,\n" +
+                "        start_date => SYSTIMESTAMP,\n" +
+                "        enabled => TRUE,\n" +
+                "        auto_drop => TRUE,\n" +
+                "        job_class => :job_class,\n" +
+                "        comments => :comments);\n" +
+                "END;",
+                new ORDSSQLServiceBind("job_name", ORDSSQLServiceBind.VARCHAR2, jobName),
+                new ORDSSQLServiceBind("job_action", ORDSSQLServiceBind.VARCHAR2, "BEGIN\n" + action + "\nEND;"),
+                new ORDSSQLServiceBind("job_class", ORDSSQLServiceBind.VARCHAR2, jobClass == null ? "DEFAULT_JOB_CLASS" : jobClass.name()),
+                new ORDSSQLServiceBind("comments", ORDSSQLServiceBind.VARCHAR2, "dragon load of collection " + collectionName));
+
+        state = State.RUNNING;
+    }
+
+    /**
+     * Refreshes the state of the job and the number of rows loaded.
+     *
+     * @return the state of the job
+     */
+    public State poll() {
+        if (tableName == null) {
+            try (JSONPageIterator collection = restService.queryReadOnly(TABLE_NAME_QUERY,
+                    new ORDSSQLServiceBind("collection_name", ORDSSQLServiceBind.VARCHAR2, collectionName))) {
+                tableName = tableName(collection.next());
+            }
+        }
+
+        final JsonNode row;
+        try (JSONPageIterator status = restService.queryReadOnly(STATUS_QUERY,
+                new ORDSSQLServiceBind("job_name", ORDSSQLServiceBind.VARCHAR2, jobName),
+                new ORDSSQLServiceBind("table_name", ORDSSQLServiceBind.VARCHAR2, tableName),
+                new ORDSSQLServiceBind("log_id", ORDSSQLServiceBind.NUMBER, lastLogId),
+                new ORDSSQLServiceBind("load_id", ORDSSQLServiceBind.NUMBER, lastLoadId))) {
+            row = status.next();
+        }
+
+        rowsLoaded = row.path("rows_loaded").asLong();
+        errors = row.path("run_errors").isNull() ? null : row.path("run_errors").asText(null);
+
+        final String jobState = row.path("state").asText("");
+        final String runStatus = row.path("run_status").asText("");
+        if (!jobState.isEmpty()) {
+            state = State.RUNNING;
+        } else if ("SUCCEEDED".equals(runStatus)) {
+            state = State.SUCCEEDED;
+        } else if (!runStatus.isEmpty()) {
+            state = State.FAILED;
+        } else if (state == State.RUNNING) {
+            // dropped before logging its run: it ran but its outcome is lost
+            state = State.FAILED;
+            errors = "job " + jobName + " disappeared without logging its run";
+        }
+
+        final long now = System.nanoTime();
+        if (firstPollRows < 0) {
+            firstPollNanos = now;
+            firstPollRows = rowsLoaded;
+        } else if (now > firstPollNanos) {
+            rowsPerSecond = (rowsLoaded - firstPollRows) * 1_000_000_000.0 / (now - firstPollNanos);
+        }
+
+        return state;
+    }
+
+    /**
+     * @return the table backing the collection, or the collection name if the collection doesn't exist (nothing is
+     * loaded then)
+     */
+    private String tableName(JsonNode row) {
+        final JsonNode tableName = row.path("table_name");
+        return tableName.isNull() || tableName.isMissingNode() ? collectionName : tableName.asText();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    /**
+     * @return the number of rows loaded per second since the first poll
+     */
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public String getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,56 @@
+package com.oracle.dragon.util;
+
+/**
+ * Predefined database services of Autonomous Databases, each one mapped to a consumer group with its own parallelism
+ * and concurrency (HIGH and MEDIUM run statements in parallel but allow few concurrent ones, LOW and TP the opposite).
+ * <p>
+ * ORDS sessions use the LOW service: PL/SQL blocks can run on another service using <code>CS_SESSION.SWITCH_SERVICE</code>,
+ * the pooled session being switched back to its service afterward. Without the privilege to execute
+ * <code>CS_SESSION</code>, the block runs on the current service.
+ *
+ * @see <a href="https://docs.oracle.com/en/cloud/paas/autonomous-database/adbsa/cs_session.html">CS_SESSION Package</a>
+ */
+public enum ServiceLevel {
+    HIGH,
+    MEDIUM,
+    LOW,
+    TP,
+    TPURGENT;
+
+    /**
+     * @param level      the service to run the statements on, null to keep the service of the session
+     * @param statements the PL/SQL statements to run
+     * @return a PL/SQL block running the statements on the given service
+     */
+    public static String plsqlBlock(final ServiceLevel level, final String statements) {
+        if (level == null) {
+            return "BEGIN\n" + statements + "\nEND;";
+        }
+
+        return "DECLARE\n" +
+                "    previous_service VARCHAR2(16) := UPPER(REGEXP_SUBSTR(SYS_CONTEXT('USERENV', 'SERVICE_NAME'), '_(high|medium|low|tpurgent|tp)[.]', 1, 1, 'i', 1));\n" +
+                "    switched BOOLEAN := FALSE;\n" +
+                "BEGIN\n" +
+                "    IF previous_service <> '" + level.name() + "' THEN\n" +
+                "        BEGIN\n" +
+                "            EXECUTE IMMEDIATE 'BEGIN CS_SESSION.SWITCH_SERVICE(:1); END;' USING '" + level.name() + "';\n" +
+                "            switched := TRUE;\n" +
+                "        EXCEPTION\n" +
+                "            WHEN OTHERS THEN NULL; -- CS_SESSION not granted: keep the current service\n" +
+                "        END;\n" +
+                "    END IF;\n" +
+                "    BEGIN\n" +
+                statements + "\n" +
+                "    EXCEPTION\n" +
+                "        WHEN OTHERS THEN\n" +
+                "            IF switched THEN\n" +
+                "                EXECUTE IMMEDIATE 'BEGIN CS_SESSION.SWITCH_SERVICE(:1); END;' USING previous_service;\n" +
+                "            END IF;\n" +
+                "            RAISE;\n" +
+                "    END;\n" +
+                "    IF switched THEN\n" +
+                "        EXECUTE IMMEDIATE 'BEGIN CS_SESSION.SWITCH_SERVICE(:1); END;' USING previous_service;\n" +
+                "    END IF;\n" +
+                "END;";
+    }
+}
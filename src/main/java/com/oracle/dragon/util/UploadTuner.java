@@ -0,0 +1,216 @@
+package com.oracle.dragon.util;
+
+import com.oracle.bmc.objectstorage.ObjectStorage;
+import com.oracle.bmc.objectstorage.transfer.ProgressReporter;
+import com.oracle.bmc.objectstorage.transfer.UploadConfiguration;
+import com.oracle.bmc.objectstorage.transfer.UploadManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Object Storage upload settings shared by all the uploads of a load, adjusted to the throughput achieved.
+ * <p>
+ * All the uploads send their parts through one thread pool. While tuning, the number of threads starts at half the
+ * maximum and goes up one step per measurement window as long as the throughput improves, the last step being undone
+ * otherwise. Only the windows during which parts were waiting for a thread are compared: when the threads aren't all
+ * busy (few files left, slow reading), the throughput says nothing about the number of threads. The part size of each file is chosen so that the file keeps all the threads busy, while a part takes
+ * about {@value #TARGET_PART_SECONDS} seconds at the throughput measured per thread (larger parts on a fast link, less
+ * requests; smaller parts on a slow one, less data sent again on retries).
+ */
+public class UploadTuner implements AutoCloseable {
+    public static final int MIN_PART_SIZE_MB = 16;
+    public static final int MAX_PART_SIZE_MB = 1024;
+
+    /**
+     * Part size used until some throughput is measured, or when tuning is disabled (the SDK default).
+     */
+    public static final int DEFAULT_PART_SIZE_MB = 128;
+
+    private static final int TARGET_PART_SECONDS = 15;
+    private static final long MEASUREMENT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Minimum throughput gain for an additional thread to be kept.
+     */
+    private static final double MIN_GAIN = 1.05;
+
+    private static final long MB = 1024L * 1024L;
+
+    private final ObjectStorage client;
+    private final ThreadPoolExecutor executor;
+    private final int maxThreads;
+    private final int partSizeMB;
+    private final boolean tuning;
+
+    /**
+     * Upload managers by part size, an upload manager having a fixed configuration.
+     */
+    private final Map<Integer, UploadManager> uploadManagers = new ConcurrentHashMap<>();
+
+    private final AtomicLong bytesSent = new AtomicLong();
+    private long windowStartNanos = -1;
+    private long windowStartBytes;
+    /**
+     * Whether parts were waiting for a thread each time the window was sampled.
+     */
+    private boolean windowSaturated;
+    private double previousThroughput;
+    private double throughput;
+    private boolean settled;
+
+    /**
+     * @param client     the Object Storage client
+     * @param maxThreads the maximum number of parts uploaded at the same time
+     * @param partSizeMB the part size in MB, 0 to choose it for each file
+     * @param tuning     whether to adjust the number of threads and the part size to the throughput
+     */
+    public UploadTuner(ObjectStorage client, int maxThreads, int partSizeMB, boolean tuning) {
+        this.client = client;
+        this.maxThreads = Math.max(1, maxThreads);
+        this.partSizeMB = partSizeMB;
+        this.tuning = tuning;
+        this.settled = !tuning;
+
+        final int threads = tuning ? (this.maxThreads + 1) / 2 : this.maxThreads;
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            final Thread t = new Thread(r, "dragon-upload");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @return the thread pool uploading the parts of all the files
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @param length the number of bytes to upload
+     * @return the upload manager to use for these bytes
+     */
+    public UploadManager getUploadManager(long length) {
+        final int size = getPartSizeMB(length);
+        return uploadManagers.computeIfAbsent(size, s -> new UploadManager(client,
+                UploadConfiguration.builder()
+                        .allowMultipartUploads(true)
+                        .allowParallelUploads(true)
+                        .minimumLengthForMultipartUpload(s)
+                        .lengthPerUploadPart(s)
+                        .build()));
+    }
+
+    /**
+     * @return a progress reporter to attach to an upload so that its throughput is measured
+     */
+    public ProgressReporter newProgressReporter() {
+        return new ProgressReporter() {
+            private long reported;
+
+            @Override
+            public synchronized void onProgress(long completed, long total) {
+                if (completed > reported) {
+                    bytesSent.addAndGet(completed - reported);
+                    reported = completed;
+                }
+                measure(System.nanoTime());
+            }
+        };
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * @return the throughput (bytes per second) measured over the last window
+     */
+    public synchronized double getThroughput() {
+        return throughput;
+    }
+
+    int getPartSizeMB(long length) {
+        if (partSizeMB > 0) return Math.max(MIN_PART_SIZE_MB, Math.min(partSizeMB, MAX_PART_SIZE_MB));
+        if (!tuning) return DEFAULT_PART_SIZE_MB;
+
+        final int threads = getThreads();
+        long size = length / threads;
+
+        final double threadThroughput = getThroughput() / threads;
+        size = Math.min(size, threadThroughput > 0 ? (long) (threadThroughput * TARGET_PART_SECONDS) : DEFAULT_PART_SIZE_MB * MB);
+
+        // powers of two only, to share upload managers between files
+        final int sizeMB = Integer.highestOneBit((int) Math.max(1, Math.min(size / MB, MAX_PART_SIZE_MB)));
+        return Math.max(MIN_PART_SIZE_MB, sizeMB);
+    }
+
+    /**
+     * Samples the thread pool, closes the measurement window once it's long enough and adjusts the number of threads.
+     */
+    synchronized void measure(long now) {
+        final long bytes = bytesSent.get();
+        final boolean saturated = !executor.getQueue().isEmpty();
+
+        if (windowStartNanos < 0) {
+            windowStartNanos = now;
+            windowStartBytes = bytes;
+            windowSaturated = saturated;
+            return;
+        }
+
+        windowSaturated &= saturated;
+        if (now - windowStartNanos < MEASUREMENT_WINDOW_NANOS) return;
+
+        throughput = (bytes - windowStartBytes) * 1_000_000_000.0 / (now - windowStartNanos);
+        windowStartNanos = now;
+        windowStartBytes = bytes;
+
+        final boolean comparable = windowSaturated;
+        windowSaturated = saturated;
+        // the number of threads is left as is, to be measured again once they are all busy
+        if (settled || !comparable) return;
+
+        final int threads = getThreads();
+        if (previousThroughput > 0 && throughput < previousThroughput * MIN_GAIN) {
+            // the last thread added didn't help
+            setThreads(threads - 1);
+            settled = true;
+        } else if (threads < maxThreads) {
+            setThreads(threads + 1);
+        } else {
+            settled = true;
+        }
+        previousThroughput = throughput;
+    }
+
+    synchronized boolean isSettled() {
+        return settled;
+    }
+
+    /**
+     * Stops the upload threads. This instance can't be used anymore afterward.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void setThreads(int threads) {
+        if (threads < 1) return;
+
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+}
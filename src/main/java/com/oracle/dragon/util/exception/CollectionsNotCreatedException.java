@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class CollectionsNotCreatedException extends DSException {
+    public CollectionsNotCreatedException(int failed, String details) {
+        super(ErrorCode.CollectionsNotCreated, String.format("%d collection(s) could not be created:%s", failed, details));
+    }
+}
@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class ConfigurationClientKeyAssignmentException extends DSException {
+    public ConfigurationClientKeyAssignmentException(String collectionName) {
+        super(ErrorCode.ConfigurationClientKeyAssignment, String.format("The collection %s uses client assigned keys but has data files to load: loaded documents can't provide their key, use uuid or guid key assignment for this collection.", collectionName));
+    }
+}
@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class ConfigurationWrongCollectionMetadataException extends DSException {
+    public ConfigurationWrongCollectionMetadataException(String parameter, String value, String expected) {
+        super(ErrorCode.ConfigurationWrongCollectionMetadata, String.format("The collection metadata parameter %s has a wrong value %s, expected one of: %s.", parameter, value, expected));
+    }
+}
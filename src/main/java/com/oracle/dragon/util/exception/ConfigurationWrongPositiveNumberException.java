@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class ConfigurationWrongPositiveNumberException extends DSException {
+    public ConfigurationWrongPositiveNumberException(String parameter, String value) {
+        super(ErrorCode.ConfigurationWrongPositiveNumber, String.format("The parameter %s has a wrong value %s, expected a number greater than 0.", parameter, value));
+    }
+}
@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class ConfigurationWrongServiceLevelException extends DSException {
+    public ConfigurationWrongServiceLevelException(String parameter, String value) {
+        super(ErrorCode.ConfigurationWrongServiceLevel, String.format("The service level %s specified by %s is wrong, either let the parameter empty or set it to high, medium, low, tp or tpurgent.", value, parameter));
+    }
+}
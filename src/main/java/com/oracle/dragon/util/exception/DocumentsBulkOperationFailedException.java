@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class DocumentsBulkOperationFailedException extends DSException {
+    public DocumentsBulkOperationFailedException(String collectionName, Throwable t) {
+        super(ErrorCode.DocumentsBulkOperationFailed, String.format("Documents of collection %s could not be updated or deleted!", collectionName), t);
+    }
+}
@@ -35,7 +35,19 @@ public enum ErrorCode {
     LoadLocalConfiguration(-32),
     LoadStackMetadata(-33),
     StackFileNotFound(-34),
-    ConfigurationBadFingerprintParameter(-35);
+    ConfigurationBadFingerprintParameter(-35),
+    MissingSQLScriptParameter(-36),
+    SQLScriptNotFound(-37),
+    SQLScriptExecutionFailed(-38),
+    ConfigurationWrongCollectionMetadata(-39),
+    ConfigurationWrongServiceLevel(-40),
+    CollectionsNotCreated(-41),
+    MissingBulkOperationParameter(-42),
+    DocumentsBulkOperationFailed(-43),
+    LoadManifest(-44),
+    InvalidDataFile(-45),
+    ConfigurationClientKeyAssignment(-46),
+    ConfigurationWrongPositiveNumber(-47);
 
     public final int internalErrorCode;
 
@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class InvalidDataFileException extends DSException {
+    public InvalidDataFileException(String details, Throwable t) {
+        super(ErrorCode.InvalidDataFile, String.format("Invalid JSON data file, nothing was uploaded: %s", details), t);
+    }
+}
@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class LoadManifestException extends DSException {
+    public LoadManifestException(String loadManifestFilename, Throwable t) {
+        super(ErrorCode.LoadManifest, String.format("Can't read or write load manifest file \"%s\"!", loadManifestFilename), t);
+    }
+}
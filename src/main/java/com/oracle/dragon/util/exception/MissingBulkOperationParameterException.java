@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class MissingBulkOperationParameterException extends DSException {
+    public MissingBulkOperationParameterException(String usage) {
+        super(ErrorCode.MissingBulkOperationParameter, String.format("Please provide the collection and the JSON parameters: %s", usage));
+    }
+}
@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class MissingSQLScriptParameterException extends DSException {
+    public MissingSQLScriptParameterException() {
+        super(ErrorCode.MissingSQLScriptParameter, "Please provide the SQL script to run: -sql <script file>");
+    }
+}
@@ -0,0 +1,11 @@
+package com.oracle.dragon.util.exception;
+
+public class SQLScriptExecutionFailedException extends DSException {
+    public SQLScriptExecutionFailedException(String scriptName, Throwable t) {
+        super(ErrorCode.SQLScriptExecutionFailed, String.format("SQL script %s could not be run!", scriptName), t);
+    }
+
+    public SQLScriptExecutionFailedException(String scriptName, int errors, String details) {
+        super(ErrorCode.SQLScriptExecutionFailed, String.format("SQL script %s ran with %d error(s):%s", scriptName, errors, details));
+    }
+}
@@ -0,0 +1,7 @@
+package com.oracle.dragon.util.exception;
+
+public class SQLScriptNotFoundException extends DSException {
+    public SQLScriptNotFoundException(String path) {
+        super(ErrorCode.SQLScriptNotFound, String.format("The SQL script \"%s\" doesn't exist.", path));
+    }
+}
@@ -0,0 +1,185 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ADBRESTServiceTest {
+    private static final int MAX_IN_FLIGHT_REQUESTS = 4;
+    private static final int BATCH_DOCUMENTS = 5;
+
+    private static final String ONE_ROW = "{\"items\":[{\"statementId\":1,\"resultSet\":{\"items\":[{\"n\":1}],\"hasMore\":false}}]}";
+
+    private HttpServer server;
+    private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void bulkInsertKeepsFewDocumentsInMemory() throws IOException {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger maxRequests = new AtomicInteger();
+        final AtomicInteger insertedDocuments = new AtomicInteger();
+
+        try (ADBRESTService service = start(new RetryPolicy(), exchange -> {
+            maxRequests.accumulateAndGet(requests.incrementAndGet(), Math::max);
+            try {
+                final String body = readBody(exchange);
+                Thread.sleep(5);
+
+                if (body.contains("\"bad\"")) {
+                    respond(exchange, 400, "{\"title\":\"bad document\"}");
+                } else {
+                    insertedDocuments.addAndGet(body.split("},\\{").length);
+                    respond(exchange, 200, "{\"items\":[]}");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                requests.decrementAndGet();
+            }
+        })) {
+            final AtomicInteger readAhead = new AtomicInteger();
+            final Iterator<String> documents = new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < 500;
+                }
+
+                @Override
+                public String next() {
+                    // documents read but not inserted yet: the batches in flight and the one being built
+                    readAhead.accumulateAndGet(next - insertedDocuments.get(), Math::max);
+                    return next++ == 42 ? "{\"value\":\"bad\"}" : "{\"id\":" + (next - 1) + "}";
+                }
+            };
+
+            final SODABulkInsertResult result = service.insertDocuments("users", documents, BATCH_DOCUMENTS, 1024 * 1024);
+
+            assertEquals(100, result.getBatches().size());
+            assertEquals(495, result.getInsertedDocuments());
+            assertEquals(5, result.getFailedDocuments());
+            assertFalse(result.getBatches().get(8).isSuccessful());
+            assertTrue(maxRequests.get() <= MAX_IN_FLIGHT_REQUESTS);
+            // the failed batch is never counted as inserted
+            assertTrue(readAhead.get() <= (MAX_IN_FLIGHT_REQUESTS + 1) * BATCH_DOCUMENTS + BATCH_DOCUMENTS);
+        }
+    }
+
+    @Test
+    void onlyReadOnlyQueriesAreSentAgain() throws IOException {
+        final AtomicInteger requests = new AtomicInteger();
+
+        try (ADBRESTService service = start(new RetryPolicy().initialBackoff(1), exchange -> {
+            readBody(exchange);
+            // the gateway gives up on the first request of each query while the statement may have run
+            if (requests.incrementAndGet() <= 2) {
+                respond(exchange, 504, "");
+            } else {
+                respond(exchange, 200, ONE_ROW);
+            }
+        })) {
+            assertThrows(RuntimeException.class, () -> {
+                try (JSONPageIterator rows = service.query("SELECT my_function() AS n FROM dual")) {
+                    rows.hasNext();
+                }
+            });
+            assertEquals(1, requests.get());
+
+            try (JSONPageIterator rows = service.queryReadOnly("SELECT 1 AS n FROM dual")) {
+                assertEquals(1, rows.next().path("n").asInt());
+            }
+            assertEquals(3, requests.get());
+        }
+    }
+
+    @Test
+    void hedgedReadWaitsForASuccessfulResponse() throws IOException {
+        final AtomicInteger requests = new AtomicInteger();
+
+        try (ADBRESTService service = start(new RetryPolicy().hedgePercentile(50), exchange -> {
+            readBody(exchange);
+            final int request = requests.incrementAndGet();
+            try {
+                if (request == 21) {
+                    // slow primary request, hedged
+                    Thread.sleep(300);
+                } else if (request == 22) {
+                    respond(exchange, 500, "{\"title\":\"hedging request failed\"}");
+                    return;
+                }
+                respond(exchange, 200, ONE_ROW);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            // latencies of the recent reads
+            for (int i = 0; i < 20; i++) {
+                try (JSONPageIterator rows = service.queryReadOnly("SELECT 1 AS n FROM dual")) {
+                    rows.next();
+                }
+            }
+
+            final JsonNode row;
+            try (JSONPageIterator rows = service.queryReadOnly("SELECT 1 AS n FROM dual")) {
+                row = rows.next();
+            }
+            assertEquals(1, row.path("n").asInt());
+            assertEquals(22, requests.get());
+            assertEquals(1, service.getHedgedRequests());
+        }
+    }
+
+    private ADBRESTService start(RetryPolicy retryPolicy, HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/", handler);
+        server.start();
+
+        return new ADBRESTService("http://localhost:" + server.getAddress().getPort() + "/ords/sql-developer", "dragon", "password", MAX_IN_FLIGHT_REQUESTS, retryPolicy);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        final byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length == 0 ? -1 : response.length);
+        if (response.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        }
+        exchange.close();
+    }
+}
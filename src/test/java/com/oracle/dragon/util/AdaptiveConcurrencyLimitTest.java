@@ -0,0 +1,152 @@
+package com.oracle.dragon.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+    @Test
+    void requestsOverTheLimitWait() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 2, 10, Runnable::run);
+
+        final CompletableFuture<Long> first = limit.acquire();
+        final CompletableFuture<Long> second = limit.acquire();
+        final CompletableFuture<Long> third = limit.acquire();
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertFalse(third.isDone());
+
+        limit.release(first.join(), 1, true, false);
+        assertTrue(third.isDone());
+    }
+
+    @Test
+    void healthyRequestsRaiseTheLimitByAboutOnePerRound() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 2, 10, Runnable::run);
+
+        // 2 + 1/2 + 1/2.5 + 1/2.9
+        for (int i = 0; i < 3; i++) {
+            send(limit, true, false);
+        }
+        assertEquals(3, limit.getLimit());
+
+        // + 1/3.24 + 1/3.55 + 1/3.83
+        for (int i = 0; i < 3; i++) {
+            send(limit, true, false);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void limitStaysWithinBounds() throws InterruptedException {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 3, 4, Runnable::run);
+
+        for (int i = 0; i < 100; i++) {
+            send(limit, true, false);
+        }
+        assertEquals(4, limit.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(2);
+            send(limit, false, false);
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    void throttlingHalvesTheLimitOncePerRoundTrip() throws InterruptedException {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 8, 16, Runnable::run);
+        final List<Long> starts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            starts.add(limit.acquire().join());
+        }
+
+        Thread.sleep(2);
+        // the requests sent along report the same congestion
+        for (long start : starts) {
+            limit.release(start, 1, true, true);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void cancelledWaiterPassesItsSlotOn() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, Runnable::run);
+
+        final long start = limit.acquire().join();
+        final CompletableFuture<Long> cancelled = limit.acquire();
+        final CompletableFuture<Long> next = limit.acquire();
+        cancelled.cancel(false);
+
+        limit.release(start, 1, true, false);
+        assertTrue(next.isDone());
+        assertFalse(next.isCompletedExceptionally());
+    }
+
+    @Test
+    void documentsPerSecond() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, Runnable::run);
+        assertEquals(0.0, limit.getDocumentsPerSecond());
+
+        limit.release(limit.acquire().join(), 100, true, false);
+        assertTrue(limit.getDocumentsPerSecond() > 0);
+    }
+
+    @Test
+    void latencySpikeLowersTheLimit() throws InterruptedException {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 8, 16, Runnable::run);
+        for (int i = 0; i < 20; i++) {
+            send(limit, true, false);
+        }
+        final int healthyLimit = limit.getLimit();
+
+        Thread.sleep(2);
+        limit.acquire().join();
+        limit.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10), 1, true, false);
+        assertEquals(healthyLimit / 2, limit.getLimit());
+    }
+
+    @Test
+    void neverMoreRequestsInFlightThanTheLimit() throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 3, 3, executor);
+            final AtomicInteger inFlight = new AtomicInteger();
+            final AtomicInteger maxInFlight = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(1000);
+
+            for (int i = 0; i < 1000; i++) {
+                limit.acquire().thenAccept(start -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    inFlight.decrementAndGet();
+                    limit.release(start, 1, true, false);
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertTrue(maxInFlight.get() <= 3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends a request taking 1 ms.
+     */
+    private static void send(AdaptiveConcurrencyLimit limit, boolean succeeded, boolean throttled) {
+        limit.acquire().join();
+        limit.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1), 1, succeeded, throttled);
+    }
+}
@@ -0,0 +1,94 @@
+package com.oracle.dragon.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncPermitsTest {
+    @Test
+    void waitersAreServedInOrder() {
+        final AsyncPermits permits = new AsyncPermits(2, Runnable::run);
+
+        assertTrue(permits.acquire().isDone());
+        assertTrue(permits.acquire().isDone());
+        final CompletableFuture<Void> first = permits.acquire();
+        final CompletableFuture<Void> second = permits.acquire();
+        assertFalse(first.isDone());
+        assertFalse(permits.tryAcquire());
+
+        permits.release();
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+
+        permits.release();
+        assertTrue(second.isDone());
+
+        permits.release();
+        permits.release();
+        assertTrue(permits.tryAcquire());
+        assertTrue(permits.tryAcquire());
+        assertFalse(permits.tryAcquire());
+    }
+
+    @Test
+    void cancelledWaiterPassesThePermitOn() {
+        final AsyncPermits permits = new AsyncPermits(1, Runnable::run);
+
+        assertTrue(permits.tryAcquire());
+        final CompletableFuture<Void> cancelled = permits.acquire();
+        final CompletableFuture<Void> next = permits.acquire();
+        cancelled.cancel(false);
+
+        permits.release();
+        assertTrue(next.isDone());
+        assertFalse(next.isCompletedExceptionally());
+    }
+
+    @Test
+    void interruptedBlockingAcquisitionHoldsNoPermit() throws InterruptedException {
+        final AsyncPermits permits = new AsyncPermits(1, Runnable::run);
+        assertTrue(permits.tryAcquire());
+
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, permits::acquireBlocking);
+
+        permits.release();
+        assertTrue(permits.tryAcquire());
+    }
+
+    @Test
+    void neverMoreHoldersThanPermits() throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final AsyncPermits permits = new AsyncPermits(3, executor);
+            final AtomicInteger holders = new AtomicInteger();
+            final AtomicInteger maxHolders = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(1000);
+
+            for (int i = 0; i < 1000; i++) {
+                permits.acquire().thenRun(() -> {
+                    maxHolders.accumulateAndGet(holders.incrementAndGet(), Math::max);
+                    holders.decrementAndGet();
+                    permits.release();
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertTrue(maxHolders.get() <= 3);
+            assertEquals(0, holders.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
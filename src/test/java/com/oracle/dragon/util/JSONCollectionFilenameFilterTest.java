@@ -0,0 +1,95 @@
+package com.oracle.dragon.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JSONCollectionFilenameFilterTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void matchesDataFilesOfTheCollections() {
+        final JSONCollectionFilenameFilter filter = new JSONCollectionFilenameFilter(Arrays.asList("users", "orders"));
+
+        assertEquals("users", filter.getCollectionName("users.json"));
+        assertEquals("users", filter.getCollectionName("users_001.json"));
+        assertEquals("orders", filter.getCollectionName("ORDERS_2.JSON"));
+        assertTrue(filter.accept(folder.toFile(), "Users.Json"));
+
+        assertNull(filter.getCollectionName("users_a.json"));
+        assertNull(filter.getCollectionName("users.json.gz"));
+        assertNull(filter.getCollectionName("customers.json"));
+        assertFalse(filter.accept(folder.toFile(), "users_.json"));
+    }
+
+    @Test
+    void longestCollectionNameWins() {
+        final JSONCollectionFilenameFilter filter = new JSONCollectionFilenameFilter(Arrays.asList("users", "users_1"));
+
+        assertEquals("users_1", filter.getCollectionName("users_1.json"));
+        assertEquals("users_1", filter.getCollectionName("users_1_2.json"));
+        assertEquals("users", filter.getCollectionName("users_2.json"));
+    }
+
+    @Test
+    void collectionNamesAreQuoted() {
+        final JSONCollectionFilenameFilter filter = new JSONCollectionFilenameFilter(Arrays.asList("a.b"));
+
+        assertEquals("a.b", filter.getCollectionName("a.b.json"));
+        assertNull(filter.getCollectionName("axb.json"));
+    }
+
+    @Test
+    void scanOrdersCollectionsAndFilesLargestFirst() throws IOException {
+        write("small.json", 10);
+        write("large_1.json", 100);
+        write("large_2.json", 300);
+        write("other.json", 1000);
+        Files.createDirectories(folder.resolve("sub"));
+        write("sub/small_2.json", 1000);
+
+        final JSONCollectionFilenameFilter filter = new JSONCollectionFilenameFilter(Arrays.asList("small", "large", "empty"));
+        final Map<String, List<File>> plan = filter.scan(folder.toFile(), false);
+
+        assertEquals(Arrays.asList("large", "small"), List.copyOf(plan.keySet()));
+        assertEquals(Arrays.asList("large_2.json", "large_1.json"), names(plan.get("large")));
+        assertEquals(Arrays.asList("small.json"), names(plan.get("small")));
+    }
+
+    @Test
+    void recursiveScan() throws IOException {
+        write("small.json", 10);
+        write("large_1.json", 100);
+        Files.createDirectories(folder.resolve("sub"));
+        write("sub/small_2.json", 1000);
+
+        final JSONCollectionFilenameFilter filter = new JSONCollectionFilenameFilter(Arrays.asList("small", "large"));
+        final Map<String, List<File>> plan = filter.scan(folder.toFile(), true);
+
+        assertEquals(Arrays.asList("small", "large"), List.copyOf(plan.keySet()));
+        assertEquals(Arrays.asList("small_2.json", "small.json"), names(plan.get("small")));
+        assertEquals("sub/small_2.json", JSONCollectionFilenameFilter.getDataFileName(folder.toFile(), plan.get("small").get(0)));
+    }
+
+    private void write(String name, int size) throws IOException {
+        Files.write(folder.resolve(name), new byte[size]);
+    }
+
+    private static List<String> names(List<File> files) {
+        return files.stream().map(File::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,166 @@
+package com.oracle.dragon.util;
+
+import com.oracle.dragon.model.LoadManifestJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadManifestTrackerTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void loadedFilesAreSkipped() throws IOException {
+        final File users = write("users.json", "{\"a\":1}\n");
+        final File users2 = write("users_2.json", "{\"a\":2}\n");
+
+        LoadManifestTracker manifest = open("db");
+        assertEquals(Arrays.asList(users, users2), manifest.getFilesToLoad("users", Arrays.asList(users, users2)));
+
+        manifest.loaded("users", Collections.singletonList(users));
+
+        // the manifest is saved after each change
+        manifest = open("db");
+        assertEquals(Collections.singletonList(users2), manifest.getFilesToLoad("users", Arrays.asList(users, users2)));
+        // another collection loading the same file
+        assertEquals(Collections.singletonList(users), manifest.getFilesToLoad("others", Collections.singletonList(users)));
+    }
+
+    @Test
+    void manifestOfAnotherDatabaseIsDiscarded() throws IOException {
+        final File users = write("users.json", "{\"a\":1}\n");
+        open("db").loaded("users", Collections.singletonList(users));
+
+        assertEquals(Collections.singletonList(users), open("otherdb").getFilesToLoad("users", Collections.singletonList(users)));
+    }
+
+    @Test
+    void changedFileIsLoadedAgain() throws IOException {
+        final File users = write("users.json", "{\"a\":1}\n");
+        final LoadManifestTracker manifest = open("db");
+        manifest.loaded("users", Collections.singletonList(users));
+
+        // only touched: same content
+        assertTrue(users.setLastModified(users.lastModified() - 10_000));
+        assertTrue(manifest.getFilesToLoad("users", Collections.singletonList(users)).isEmpty());
+
+        Files.write(users.toPath(), "{\"a\":3}\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(users.setLastModified(users.lastModified() + 20_000));
+        assertEquals(Collections.singletonList(users), manifest.getFilesToLoad("users", Collections.singletonList(users)));
+    }
+
+    @Test
+    void uploadedObjects() throws IOException {
+        final File users = write("users.json", "{\"a\":1}\n");
+        final List<String> objectNames = Arrays.asList("users/users.json.gz");
+
+        final LoadManifestTracker manifest = open("db");
+        assertFalse(manifest.isUploaded("users", users, objectNames));
+        assertNull(manifest.getObjectNames("users", users));
+
+        manifest.uploaded("users", users, objectNames);
+
+        assertTrue(open("db").isUploaded("users", users, objectNames));
+        // compressed or split differently
+        assertFalse(open("db").isUploaded("users", users, Arrays.asList("users/users.json")));
+        assertEquals(objectNames, open("db").getObjectNames("users", users));
+    }
+
+    @Test
+    void jobsAreForgottenOnceLoaded() throws IOException {
+        final File users = write("users.json", "{\"a\":1}\n");
+        final LoadManifestTracker manifest = open("db");
+        manifest.uploaded("users", users, Collections.singletonList("users/users.json"));
+        manifest.jobSubmitted("users", new LoadManifestJob(12, 34));
+
+        final LoadManifestJob job = open("db").getJob("users");
+        assertEquals(12, job.getLogId());
+        assertEquals(34, job.getLoadId());
+
+        manifest.uploadedFilesLoaded("users");
+        assertNull(open("db").getJob("users"));
+        assertTrue(open("db").getFilesToLoad("users", Collections.singletonList(users)).isEmpty());
+    }
+
+    @Test
+    void insertedLinesAreMerged() throws IOException {
+        final File users = write("users.json", "{\"a\":1}\n");
+        final LoadManifestTracker manifest = open("db");
+
+        manifest.inserted("users", users, 11, 20);
+        manifest.inserted("users", users, 1, 10);
+        manifest.inserted("users", users, 31, 40);
+
+        final RESTCollectionLoader.InsertedLines inserted = open("db").getInsertedLines("users");
+        assertTrue(inserted.contains(users, 1));
+        assertTrue(inserted.contains(users, 20));
+        assertFalse(inserted.contains(users, 21));
+        assertTrue(inserted.contains(users, 35));
+        assertFalse(inserted.contains(users, 41));
+        assertFalse(open("db").getInsertedLines("others").contains(users, 1));
+
+        manifest.loaded("users", Collections.singletonList(users));
+        assertFalse(open("db").getInsertedLines("users").contains(users, 1));
+    }
+
+    @Test
+    void concurrentInsertedBatches() throws Exception {
+        final File users = write("users.json", "{\"a\":1}\n");
+        final LoadManifestTracker manifest = open("db");
+        final RESTCollectionLoader.InsertedLines insertedLines = manifest.getInsertedLines("users");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> batches = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final int first = i * 10 + 1;
+                batches.add(executor.submit(() -> {
+                    start.await();
+                    insertedLines.add(users, first, first + 9);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final RESTCollectionLoader.InsertedLines inserted = open("db").getInsertedLines("users");
+        for (int line = 1; line <= 2000; line++) {
+            assertTrue(inserted.contains(users, line));
+        }
+        assertFalse(inserted.contains(users, 2001));
+    }
+
+    private LoadManifestTracker open(String dbName) throws IOException {
+        return LoadManifestTracker.open(folder.resolve("manifest.json").toFile(), dbName, folder.toFile());
+    }
+
+    private File write(String name, String content) throws IOException {
+        final Path file = folder.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+}
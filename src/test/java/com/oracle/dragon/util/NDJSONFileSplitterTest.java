@@ -0,0 +1,105 @@
+package com.oracle.dragon.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NDJSONFileSplitterTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void smallFileIsOnePart() throws IOException {
+        final File file = write("{\"a\":1}\n{\"a\":2}\n");
+
+        final List<NDJSONFileSplitter.Part> parts = NDJSONFileSplitter.split(file, 1024);
+
+        assertEquals(1, parts.size());
+        assertEquals(0, parts.get(0).getOffset());
+        assertEquals(file.length(), parts.get(0).getLength());
+    }
+
+    @Test
+    void emptyFileHasNoPart() throws IOException {
+        assertTrue(NDJSONFileSplitter.split(write(""), 1024).isEmpty());
+    }
+
+    @Test
+    void partsEndWithALine() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("{\"id\":").append(i).append(",\"name\":\"document ").append(i).append("\"}\n");
+        }
+        final File file = write(content.toString());
+
+        final List<NDJSONFileSplitter.Part> parts = NDJSONFileSplitter.split(file, 100);
+
+        assertTrue(parts.size() > 1);
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        long offset = 0;
+        for (NDJSONFileSplitter.Part part : parts) {
+            assertEquals(offset, part.getOffset());
+            assertTrue(part.getLength() >= 100 || part == parts.get(parts.size() - 1));
+            assertEquals('\n', bytes[(int) (part.getOffset() + part.getLength() - 1)]);
+            offset += part.getLength();
+        }
+        assertEquals(file.length(), offset);
+    }
+
+    @Test
+    void lineLongerThanThePartSizeIsNotCut() throws IOException {
+        final File file = write("{\"text\":\"a rather long line for such a small part size\"}\n{\"a\":1}\n");
+
+        final List<NDJSONFileSplitter.Part> parts = NDJSONFileSplitter.split(file, 10);
+
+        assertEquals(2, parts.size());
+        assertEquals(file.length() - "{\"a\":1}\n".length(), parts.get(0).getLength());
+    }
+
+    @Test
+    void lastLineWithoutLineFeed() throws IOException {
+        final File file = write("{\"a\":1}\n{\"a\":2}\n{\"a\":3}");
+
+        final List<NDJSONFileSplitter.Part> parts = NDJSONFileSplitter.split(file, 7);
+
+        assertEquals(3, parts.size());
+        assertEquals("{\"a\":3}".length(), parts.get(2).getLength());
+    }
+
+    @Test
+    void partsReadBackTheFile() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("{\"id\":").append(i).append(",\"text\":\"été ").append(i).append("\"}\n");
+        }
+        final File file = write(content.toString());
+
+        final ByteArrayOutputStream read = new ByteArrayOutputStream();
+        for (NDJSONFileSplitter.Part part : NDJSONFileSplitter.split(file, 1000)) {
+            try (InputStream in = NDJSONFileSplitter.open(file, part)) {
+                assertEquals(part.getLength(), in.available());
+                in.transferTo(read);
+            }
+        }
+
+        assertArrayEquals(Files.readAllBytes(file.toPath()), read.toByteArray());
+    }
+
+    private File write(String content) throws IOException {
+        final Path file = Files.createTempFile(folder, "collection", ".json");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+}
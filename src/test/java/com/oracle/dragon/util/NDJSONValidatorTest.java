@@ -0,0 +1,105 @@
+package com.oracle.dragon.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NDJSONValidatorTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void countsDocuments() throws IOException {
+        final File file = write("{\"a\":1}\n\n{\"b\":{\"c\":[1,2,{\"d\":null}]}}\r\n  {}  \n");
+
+        assertEquals(3, NDJSONValidator.validate(file));
+    }
+
+    @Test
+    void emptyFileHasNoDocument() throws IOException {
+        assertEquals(0, NDJSONValidator.validate(write("")));
+    }
+
+    @Test
+    void rejectsValuesOtherThanObjects() throws IOException {
+        final File file = write("{\"a\":1}\n[1,2]\n");
+
+        assertLine(file, 2, "a JSON object is expected");
+    }
+
+    @Test
+    void rejectsTwoDocumentsOnALine() throws IOException {
+        final File file = write("{\"a\":1}\n{\"a\":2} {\"a\":3}\n");
+
+        assertLine(file, 2, "only one JSON document per line is expected");
+    }
+
+    @Test
+    void rejectsDocumentsOnSeveralLines() throws IOException {
+        final File file = write("{\"a\":1}\n{\"a\":\n2}\n");
+
+        assertLine(file, 2, "a JSON document must fit on one line");
+    }
+
+    @Test
+    void rejectsTruncatedDocument() throws IOException {
+        final File file = write("{\"a\":1}\n{\"a\":[1,2\n");
+
+        final NDJSONValidator.InvalidLineException e = assertThrows(NDJSONValidator.InvalidLineException.class, () -> NDJSONValidator.validate(file));
+        assertTrue(e.getMessage().startsWith(file.getPath() + ":"));
+    }
+
+    @Test
+    void rejectsMalformedJSON() throws IOException {
+        final File file = write("{\"a\":1}\n{\"a\":1}\n{a:1}\n");
+
+        final NDJSONValidator.InvalidLineException e = assertThrows(NDJSONValidator.InvalidLineException.class, () -> NDJSONValidator.validate(file));
+        assertTrue(e.getMessage().startsWith(file.getPath() + ":3:"));
+    }
+
+    @Test
+    void validatesFilesInParallel() throws IOException {
+        final List<File> files = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            final StringBuilder content = new StringBuilder();
+            for (int j = 0; j < i * 100; j++) {
+                content.append("{\"file\":").append(i).append(",\"document\":").append(j).append("}\n");
+            }
+            files.add(write(content.toString()));
+        }
+
+        assertEquals(1500, NDJSONValidator.validate(files, 3));
+    }
+
+    @Test
+    void parallelValidationReportsTheInvalidFile() throws IOException {
+        final File valid = write("{\"a\":1}\n");
+        final File invalid = write("{\"a\":1}\n\"a\"\n");
+
+        final NDJSONValidator.InvalidLineException e = assertThrows(NDJSONValidator.InvalidLineException.class, () -> NDJSONValidator.validate(Arrays.asList(valid, invalid), 2));
+        assertEquals(invalid.getPath() + ":2: a JSON object is expected", e.getMessage());
+    }
+
+    private static void assertLine(File file, int line, String message) {
+        final NDJSONValidator.InvalidLineException e = assertThrows(NDJSONValidator.InvalidLineException.class, () -> NDJSONValidator.validate(file));
+        assertEquals(file.getPath() + ":" + line + ": " + message, e.getMessage());
+    }
+
+    private File write(String content) throws IOException {
+        final Path file = Files.createTempFile(folder, "collection", ".json");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+}
@@ -0,0 +1,55 @@
+package com.oracle.dragon.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+    @Test
+    void defaults() {
+        final RetryPolicy policy = new RetryPolicy();
+
+        assertEquals(RetryPolicy.DEFAULT_MAX_RETRIES, policy.getMaxRetries());
+        assertEquals(RetryPolicy.DEFAULT_MAX_BACKOFF_MS, policy.getMaxBackoffMillis());
+        assertEquals(0, policy.getHedgePercentile());
+        assertEquals(0, RetryPolicy.none().getMaxRetries());
+    }
+
+    @Test
+    void settingsAreClamped() {
+        final RetryPolicy policy = new RetryPolicy().maxRetries(-1).maxBackoff(0).hedgePercentile(100);
+
+        assertEquals(0, policy.getMaxRetries());
+        assertEquals(1, policy.getMaxBackoffMillis());
+        assertEquals(99, policy.getHedgePercentile());
+        assertEquals(0, policy.hedgePercentile(-5).getHedgePercentile());
+    }
+
+    @Test
+    void backoffIsAFullJitterOfTheExponentialCeiling() {
+        final RetryPolicy policy = new RetryPolicy().initialBackoff(100).maxBackoff(1000);
+
+        for (int attempt = 0; attempt < 5; attempt++) {
+            final long ceiling = Math.min(1000, 100L << attempt);
+            long max = 0;
+            for (int i = 0; i < 1000; i++) {
+                final long backoff = policy.backoff(attempt);
+                assertTrue(backoff >= 0 && backoff <= ceiling);
+                max = Math.max(max, backoff);
+            }
+            // the whole range is used
+            assertTrue(max > ceiling / 2);
+        }
+    }
+
+    @Test
+    void backoffDoesNotOverflow() {
+        final RetryPolicy policy = new RetryPolicy().initialBackoff(Long.MAX_VALUE / 2).maxBackoff(5000);
+
+        for (int attempt = 0; attempt < 100; attempt += 10) {
+            final long backoff = policy.backoff(attempt);
+            assertTrue(backoff >= 0 && backoff <= 5000);
+        }
+    }
+}
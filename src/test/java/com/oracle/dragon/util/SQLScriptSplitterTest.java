@@ -0,0 +1,120 @@
+package com.oracle.dragon.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SQLScriptSplitterTest {
+    private final List<String> statements = new ArrayList<>();
+    private final List<Integer> lines = new ArrayList<>();
+    private final SQLScriptSplitter splitter = new SQLScriptSplitter((line, text) -> {
+        lines.add(line);
+        statements.add(text);
+    });
+
+    @Test
+    void sqlStatements() {
+        split("create table t (id number);",
+                "insert into t",
+                "values (1); insert into t values (2);",
+                "select * from t",
+                "/");
+
+        assertEquals(Arrays.asList(
+                "create table t (id number);\n",
+                "insert into t\nvalues (1);\n",
+                "insert into t values (2);\n",
+                "select * from t;\n"), statements);
+        assertEquals(Arrays.asList(1, 2, 3, 4), lines);
+    }
+
+    @Test
+    void plsqlBlocks() {
+        split("create or replace procedure p as",
+                "begin",
+                "  null;",
+                "end;",
+                "/",
+                "BEGIN p; END;",
+                "/");
+
+        assertEquals(Arrays.asList(
+                "create or replace procedure p as\nbegin\n  null;\nend;\n/\n",
+                "BEGIN p; END;\n/\n"), statements);
+        assertEquals(Arrays.asList(1, 6), lines);
+    }
+
+    @Test
+    void sqlPlusCommands() {
+        split("set serveroutput on",
+                "SET TRANSACTION READ ONLY;",
+                "set role all;",
+                "set constraints all deferred;",
+                "prompt done; really");
+
+        assertEquals(Arrays.asList(
+                "set serveroutput on\n",
+                "SET TRANSACTION READ ONLY;\n",
+                "set role all;\n",
+                "set constraints all deferred;\n",
+                "prompt done; really\n"), statements);
+    }
+
+    @Test
+    void quotesAreKept() {
+        split("insert into t values ('it''s; fine', \"a;b\", q'[x;y]', nq'{z;}', Q'!;!');");
+
+        assertEquals(Arrays.asList("insert into t values ('it''s; fine', \"a;b\", q'[x;y]', nq'{z;}', Q'!;!');\n"), statements);
+    }
+
+    @Test
+    void multiLineLiteral() {
+        split("insert into t values ('a;",
+                "/",
+                "b');");
+
+        assertEquals(Arrays.asList("insert into t values ('a;\n/\nb');\n"), statements);
+    }
+
+    @Test
+    void identifierEndingWithQIsNotAQQuote() {
+        split("select seq'x;' from dual;");
+
+        assertEquals(Arrays.asList("select seq'x;' from dual;\n"), statements);
+    }
+
+    @Test
+    void comments() {
+        split("-- a comment; not a statement",
+                "/* a block",
+                "   comment; */",
+                "select 1 -- one;",
+                "from dual /* ; */;");
+
+        assertEquals(Arrays.asList("select 1 -- one;\nfrom dual /* ; */;\n"), statements);
+        assertEquals(Arrays.asList(4), lines);
+    }
+
+    @Test
+    void lastStatementWithoutTerminator() {
+        split("select 1 from dual");
+
+        assertFalse(splitter.isBetweenStatements());
+        splitter.end();
+
+        assertEquals(Arrays.asList("select 1 from dual;\n"), statements);
+        assertTrue(splitter.isBetweenStatements());
+    }
+
+    private void split(String... script) {
+        for (int i = 0; i < script.length; i++) {
+            splitter.parseLine(script[i], i + 1);
+        }
+    }
+}
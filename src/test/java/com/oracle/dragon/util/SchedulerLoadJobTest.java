@@ -0,0 +1,102 @@
+package com.oracle.dragon.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SchedulerLoadJobTest {
+    private static final String TABLE_NAME = "DRAGON_USERS_0123";
+
+    private HttpServer server;
+    private final List<JsonNode> statements = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void progressIsReadForTheTableBackingTheCollection() throws IOException {
+        try (ADBRESTService service = start()) {
+            final SchedulerLoadJob job = new SchedulerLoadJob(service, "users");
+            job.submit("NULL;", null);
+
+            assertEquals(SchedulerLoadJob.State.RUNNING, job.poll());
+            assertEquals(42, job.getRowsLoaded());
+            assertEquals(TABLE_NAME, bind(statements.get(statements.size() - 1), "table_name"));
+        }
+    }
+
+    @Test
+    void attachedLoadResolvesTheTableAtTheFirstPoll() throws IOException {
+        try (ADBRESTService service = start()) {
+            final SchedulerLoadJob job = new SchedulerLoadJob(service, "users");
+            job.attach(1, 2);
+
+            job.poll();
+            job.poll();
+            // one lookup then two status queries
+            assertEquals(3, statements.size());
+            assertEquals(TABLE_NAME, bind(statements.get(2), "table_name"));
+        }
+    }
+
+    private ADBRESTService start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            final JsonNode request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = new ObjectMapper().readTree(in);
+            }
+            statements.add(request);
+
+            final String statement = request.path("statementText").asText();
+            if (statement.contains("user_scheduler_jobs")) {
+                respond(exchange, "{\"state\":\"RUNNING\",\"run_status\":null,\"run_errors\":null,\"rows_loaded\":42}");
+            } else if (statement.contains("user_soda_collections")) {
+                respond(exchange, "{\"log_id\":1,\"load_id\":2,\"table_name\":\"" + TABLE_NAME + "\"}");
+            } else {
+                respond(exchange, null);
+            }
+        });
+        server.start();
+
+        return new ADBRESTService("http://localhost:" + server.getAddress().getPort() + "/ords/sql-developer", "dragon", "password", 2, new RetryPolicy());
+    }
+
+    private static String bind(JsonNode request, String name) {
+        for (JsonNode bind : request.path("binds")) {
+            if (name.equals(bind.path("name").asText())) {
+                return bind.path("value").asText();
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, String row) throws IOException {
+        final String body = "{\"items\":[{\"statementId\":1" +
+                (row == null ? ",\"result\":0}" : ",\"resultSet\":{\"items\":[" + row + "],\"hasMore\":false}}") + "]}";
+        final byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+        exchange.close();
+    }
+}
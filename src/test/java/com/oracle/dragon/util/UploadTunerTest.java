@@ -0,0 +1,70 @@
+package com.oracle.dragon.util;
+
+import com.oracle.bmc.objectstorage.transfer.ProgressReporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadTunerTest {
+    private static final long MB = 1024L * 1024L;
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(6);
+
+    private final UploadTuner tuner = new UploadTuner(null, 4, 0, true);
+    private final CountDownLatch uploading = new CountDownLatch(1);
+
+    @AfterEach
+    void close() {
+        uploading.countDown();
+        tuner.close();
+    }
+
+    @Test
+    void onlyWindowsWithBusyThreadsAreCompared() {
+        final ProgressReporter progress = tuner.newProgressReporter();
+        final long start = System.nanoTime();
+        tuner.measure(start);
+        assertEquals(2, tuner.getThreads());
+
+        // threads waiting for parts to upload
+        progress.onProgress(100 * MB, 1000 * MB);
+        tuner.measure(start + WINDOW);
+        tuner.measure(start + 2 * WINDOW);
+        assertEquals(2, tuner.getThreads());
+        assertFalse(tuner.isSettled());
+
+        // parts waiting for threads from now on
+        for (int i = 0; i < 8; i++) {
+            tuner.getExecutor().execute(() -> {
+                try {
+                    uploading.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        tuner.measure(start + 3 * WINDOW);
+        assertEquals(2, tuner.getThreads());
+
+        progress.onProgress(200 * MB, 1000 * MB);
+        tuner.measure(start + 4 * WINDOW);
+        assertEquals(3, tuner.getThreads());
+
+        // no gain from the third thread
+        progress.onProgress(250 * MB, 1000 * MB);
+        tuner.measure(start + 5 * WINDOW);
+        assertEquals(2, tuner.getThreads());
+        assertTrue(tuner.isSettled());
+    }
+
+    @Test
+    void threadsAreStoppedOnClose() {
+        tuner.close();
+        assertTrue(tuner.getExecutor().isShutdown());
+    }
+}